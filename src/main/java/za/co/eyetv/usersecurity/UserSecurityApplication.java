@@ -2,8 +2,10 @@ package za.co.eyetv.usersecurity;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UserSecurityApplication {
 
 	public static void main(String[] args) {
@@ -12,6 +12,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import za.co.eyetv.usersecurity.security.JwtService;
+import za.co.eyetv.usersecurity.security.VerifiedToken;
 
 import java.util.List;
 
@@ -36,18 +37,32 @@ public class AuthChannelInterceptor implements ChannelInterceptor {
                     jwt = bearer.substring(7);
                 }
             }
-            // 2. Validate JWT
-            if (jwt == null || !jwtService.isTokenValid(jwt)) {
-                throw new IllegalArgumentException("Invalid or missing JWT token in WebSocket CONNECT");
+            // 2. Verify JWT once and validate the parsed claims
+            VerifiedToken verifiedToken = null;
+            if (jwt != null) {
+                try {
+                    verifiedToken = jwtService.verifyToken(jwt);
+                } catch (RuntimeException e) {
+                    // Expired, malformed or badly signed: rejected below
+                }
             }
-            if (jwt != null && jwtService.isTokenValid(jwt)) {
-                String username = jwtService.extractUsername(jwt);
-                String role = jwtService.extractUserRole(jwt); // implement this if you want
-                List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
-                Authentication auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
-                accessor.setUser(auth);
+            if (verifiedToken == null || !jwtService.isTokenValid(verifiedToken)) {
+                throw new IllegalArgumentException("Invalid or missing JWT token in WebSocket CONNECT");
             }
+            String username = verifiedToken.getSubject();
+            List<GrantedAuthority> authorities = resolveAuthorities(verifiedToken);
+            Authentication auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
+            accessor.setUser(auth);
         }
         return message;
     }
+
+    private List<GrantedAuthority> resolveAuthorities(VerifiedToken verifiedToken) {
+        if (!verifiedToken.getRoles().isEmpty()) {
+            return verifiedToken.getRoles().stream()
+                    .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                    .toList();
+        }
+        return List.of(new SimpleGrantedAuthority("ROLE_" + verifiedToken.getRole()));
+    }
 }
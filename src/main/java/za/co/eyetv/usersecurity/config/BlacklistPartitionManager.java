@@ -0,0 +1,167 @@
+package za.co.eyetv.usersecurity.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.eyetv.usersecurity.security.BlacklistBloomFilter;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Maintains the daily range partitions of {@code blacklisted_tokens}.
+ *
+ * Partition {@code blacklisted_tokens_pYYYYMMDD} holds the tokens expiring on that UTC day. Partitions are
+ * created {@code jwt.blacklist.partition-precreate-days} ahead, and a day's partition is dropped as soon as the
+ * day has passed, since every token in it has expired. Expiry is therefore a metadata-only operation; only rows
+ * that land in {@code blacklisted_tokens_default} are left for {@link za.co.eyetv.usersecurity.security.BlacklistPurgeJob}.
+ */
+@Component
+@Slf4j
+public class BlacklistPartitionManager {
+
+    static final String TABLE = "blacklisted_tokens";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    /**
+     * Serialises schema changes to the table across nodes; released when the transaction ends.
+     */
+    static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('" + TABLE + "'))";
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ssxxx");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JwtProperties.Blacklist properties;
+    private final BlacklistBloomFilter blacklistBloomFilter;
+
+    public BlacklistPartitionManager(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     JwtProperties jwtProperties,
+                                     BlacklistBloomFilter blacklistBloomFilter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = jwtProperties.getBlacklist();
+        this.blacklistBloomFilter = blacklistBloomFilter;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.blacklist.partition-maintenance-interval-ms:3600000}",
+            initialDelayString = "${jwt.blacklist.partition-maintenance-interval-ms:3600000}")
+    public void scheduledMaintenance() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            log.error("Error during blacklisted token partition maintenance: {}", e.getMessage(), e);
+        }
+    }
+
+    public void maintain() {
+        createMissingPartitions();
+        // A dropped day can be a large share of the Bloom filter; rebuild so its false-positive rate stays on target
+        if (dropExpiredPartitions() > 0 && blacklistBloomFilter.isLoaded()) {
+            blacklistBloomFilter.rebuild();
+        }
+    }
+
+    /**
+     * Creates the partitions for today and the configured number of days ahead.
+     */
+    public void createMissingPartitions() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        TreeSet<LocalDate> existing = existingPartitions();
+        for (int i = 0; i <= properties.getPartitionPrecreateDays(); i++) {
+            LocalDate day = today.plusDays(i);
+            if (!existing.contains(day)) {
+                createPartition(day);
+            }
+        }
+    }
+
+    /**
+     * Drops every partition whose day has fully passed.
+     *
+     * @return the number of partitions dropped
+     */
+    public int dropExpiredPartitions() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int dropped = 0;
+        for (LocalDate day : existingPartitions().headSet(today)) {
+            String partition = partitionName(day);
+            // Dropping a partition briefly locks the parent; give up rather than queue lookups behind it
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute(LOCK_SQL);
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '2s'");
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+            });
+            log.info("Dropped expired blacklisted token partition {}", partition);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private void createPartition(LocalDate day) {
+        String partition = partitionName(day);
+        OffsetDateTime from = day.atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = from.plusDays(1);
+        String bounds = "FOR VALUES FROM ('" + BOUND.format(from) + "') TO ('" + BOUND.format(to) + "')";
+
+        Boolean created = transactionTemplate.execute(status -> {
+            // Other nodes run the same maintenance; the loser finds the partition already there
+            jdbcTemplate.execute(LOCK_SQL);
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '2s'");
+            if (existingPartitions().contains(day)) {
+                return false;
+            }
+            Integer stray = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM " + DEFAULT_PARTITION + " WHERE expiry_date >= ? AND expiry_date < ?",
+                    Integer.class, from, to);
+            if (stray == null || stray == 0) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + TABLE + " " + bounds);
+                return true;
+            }
+            // Postgres refuses a new partition while the default partition holds rows in its range, so move them first
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE expiry_date >= ? AND expiry_date < ? RETURNING *) INSERT INTO " + partition + " SELECT * FROM moved",
+                    from, to);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + partition + " " + bounds);
+            log.info("Moved {} blacklisted tokens from the default partition into {}", stray, partition);
+            return true;
+        });
+        if (Boolean.TRUE.equals(created)) {
+            log.info("Created blacklisted token partition {}", partition);
+        }
+    }
+
+    private TreeSet<LocalDate> existingPartitions() {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace",
+                String.class, TABLE);
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (String name : names) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            try {
+                days.add(LocalDate.parse(name.substring(PARTITION_PREFIX.length()), DateTimeFormatter.BASIC_ISO_DATE));
+            } catch (DateTimeParseException e) {
+                log.warn("Ignoring unrecognised blacklisted token partition {}", name);
+            }
+        }
+        return days;
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + DateTimeFormatter.BASIC_ISO_DATE.format(day);
+    }
+}
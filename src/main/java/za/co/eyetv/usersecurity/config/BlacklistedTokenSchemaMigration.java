@@ -0,0 +1,163 @@
+package za.co.eyetv.usersecurity.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Brings an existing {@code blacklisted_tokens} table up to the shape of
+ * {@link za.co.eyetv.usersecurity.model.BlacklistedToken}, which {@code ddl-auto=update} cannot do on its own.
+ *
+ * Runs after Hibernate has updated the schema and before the application serves requests.
+ * Every step is idempotent, so it is safe on fresh databases and on every restart, and each step
+ * holds an advisory lock so nodes starting together do not race on it.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class BlacklistedTokenSchemaMigration {
+
+    private static final int BACKFILL_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlacklistPartitionManager partitionManager;
+
+    public BlacklistedTokenSchemaMigration(JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           BlacklistPartitionManager partitionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitionManager = partitionManager;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        migrateTokenToDigest();
+        migrateToPartitionedTable();
+        partitionManager.maintain();
+    }
+
+    /**
+     * Replaces the full-token {@code token} varchar with the 32-byte {@code token_digest}.
+     * Legacy tokens carry no {@code jti}, so their digest is SHA-256 of the compact token,
+     * which is what {@code TokenDigests.revocationDigest} computes for them. Runs in a single transaction.
+     */
+    private void migrateTokenToDigest() {
+        if (!columnExists("blacklisted_tokens", "token")) {
+            return;
+        }
+        log.info("Migrating blacklisted_tokens.token to token_digest");
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(BlacklistPartitionManager.LOCK_SQL);
+            // Another node may have migrated the table while this one waited for the lock
+            if (!columnExists("blacklisted_tokens", "token")) {
+                return;
+            }
+            backfillTokenDigests();
+        });
+    }
+
+    private void backfillTokenDigests() {
+        jdbcTemplate.execute("ALTER TABLE blacklisted_tokens ADD COLUMN IF NOT EXISTS token_digest bytea");
+        // Expired rows are never consulted again, so there is no point digesting them
+        int expired = jdbcTemplate.update("DELETE FROM blacklisted_tokens WHERE expiry_date < now()");
+        log.info("Removed {} expired legacy blacklisted tokens", expired);
+
+        int backfilled;
+        do {
+            backfilled = jdbcTemplate.update(
+                    "UPDATE blacklisted_tokens SET token_digest = sha256(convert_to(token, 'UTF8')) " +
+                    "WHERE ctid IN (SELECT ctid FROM blacklisted_tokens WHERE token_digest IS NULL LIMIT ?)",
+                    BACKFILL_BATCH_SIZE);
+            log.debug("Backfilled {} blacklisted token digests", backfilled);
+        } while (backfilled > 0);
+
+        jdbcTemplate.execute("ALTER TABLE blacklisted_tokens ALTER COLUMN token_digest SET NOT NULL");
+        jdbcTemplate.execute("""
+                DO $$
+                BEGIN
+                    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_blacklisted_tokens_token_digest') THEN
+                        ALTER TABLE blacklisted_tokens
+                            ADD CONSTRAINT uk_blacklisted_tokens_token_digest UNIQUE (token_digest);
+                    END IF;
+                END
+                $$""");
+        jdbcTemplate.execute("ALTER TABLE blacklisted_tokens DROP COLUMN IF EXISTS token");
+        log.info("Migrated blacklisted_tokens to token digests");
+    }
+
+    /**
+     * Replaces the plain table created by Hibernate with one range-partitioned by {@code expiry_date},
+     * copying across the tokens that have not expired yet. Runs in a single transaction.
+     *
+     * A partitioned table cannot use an identity column or a unique key without the partition key, so the
+     * id comes from a sequence default and both the primary key and the digest key include {@code expiry_date}.
+     */
+    private void migrateToPartitionedTable() {
+        if (isPartitioned(BlacklistPartitionManager.TABLE)) {
+            return;
+        }
+        log.info("Converting blacklisted_tokens to a table partitioned by expiry_date");
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(BlacklistPartitionManager.LOCK_SQL);
+            // Another node may have converted the table while this one waited for the lock
+            if (isPartitioned(BlacklistPartitionManager.TABLE)) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens RENAME TO blacklisted_tokens_unpartitioned");
+            // Constraint and index names are unique per schema, so free them up for the new table
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens_unpartitioned DROP CONSTRAINT IF EXISTS uk_blacklisted_tokens_token_digest");
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens_unpartitioned DROP CONSTRAINT IF EXISTS blacklisted_tokens_pkey");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_blacklisted_tokens_expiry_date");
+            Long nextId = jdbcTemplate.queryForObject(
+                    "SELECT coalesce(max(id), 0) + 1 FROM blacklisted_tokens_unpartitioned", Long.class);
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS");
+
+            jdbcTemplate.execute("""
+                    CREATE TABLE blacklisted_tokens
+                        (LIKE blacklisted_tokens_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+                        PARTITION BY RANGE (expiry_date)""");
+            // Tables created as bigserial already have this sequence; take it over so it outlives the old table
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS blacklisted_tokens_id_seq");
+            jdbcTemplate.execute("ALTER SEQUENCE blacklisted_tokens_id_seq OWNED BY blacklisted_tokens.id");
+            jdbcTemplate.queryForObject("SELECT setval('blacklisted_tokens_id_seq', ?, false)", Long.class, nextId);
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens ALTER COLUMN id SET DEFAULT nextval('blacklisted_tokens_id_seq')");
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens ALTER COLUMN expiry_date SET NOT NULL");
+            jdbcTemplate.execute("ALTER TABLE blacklisted_tokens ADD CONSTRAINT blacklisted_tokens_pkey PRIMARY KEY (id, expiry_date)");
+            jdbcTemplate.execute("""
+                    ALTER TABLE blacklisted_tokens
+                        ADD CONSTRAINT uk_blacklisted_tokens_token_digest UNIQUE (token_digest, expiry_date)""");
+            // Only the default partition is ever scanned by expiry; the daily partitions are dropped whole
+            jdbcTemplate.execute("CREATE INDEX idx_blacklisted_tokens_expiry_date ON blacklisted_tokens (expiry_date)");
+            jdbcTemplate.execute("CREATE TABLE " + BlacklistPartitionManager.DEFAULT_PARTITION +
+                    " PARTITION OF blacklisted_tokens DEFAULT");
+            partitionManager.createMissingPartitions();
+
+            int copied = jdbcTemplate.update(
+                    "INSERT INTO blacklisted_tokens SELECT * FROM blacklisted_tokens_unpartitioned WHERE expiry_date >= now()");
+            jdbcTemplate.execute("DROP TABLE blacklisted_tokens_unpartitioned");
+            log.info("Converted blacklisted_tokens to a partitioned table, {} live tokens copied", copied);
+        });
+    }
+
+    private boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,62 @@
+package za.co.eyetv.usersecurity.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Limits on the unauthenticated {@code /api/auth/**} endpoints, per client IP and per target account, and on
+ * the {@code /api/service/**} endpoints per authenticated service client.
+ *
+ * Behind a reverse proxy set {@code server.forward-headers-strategy} so the client IP is the real one.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private Limit ip = new Limit(60, 20);
+
+    private Limit account = new Limit(10, 5);
+
+    /**
+     * Per service client, e.g. a gateway introspecting tokens; far higher than a person could log in.
+     */
+    private Limit client = new Limit(6_000, 500);
+
+    /**
+     * Buckets kept in memory; the least recently used are evicted beyond this.
+     */
+    private long maximumBuckets = 100_000;
+
+    /**
+     * Buckets not touched for this long are evicted; by then they would be full again anyway.
+     */
+    private long idleEvictionMs = 600_000;
+
+    @Getter
+    @Setter
+    public static class Limit {
+        /**
+         * Sustained requests allowed per minute.
+         */
+        private int requestsPerMinute;
+
+        /**
+         * Requests allowed back to back before the sustained rate applies.
+         */
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(int requestsPerMinute, int burst) {
+            this.requestsPerMinute = requestsPerMinute;
+            this.burst = burst;
+        }
+    }
+}
@@ -14,15 +14,18 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import za.co.eyetv.usersecurity.security.AuthRateLimitFilter;
 import za.co.eyetv.usersecurity.security.JwtAuthenticationFilter;
+import za.co.eyetv.usersecurity.security.PasswordEncoders;
+import za.co.eyetv.usersecurity.security.ServiceRateLimitFilter;
 
 import java.util.List;
 
@@ -33,7 +36,11 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
+    private final ServiceRateLimitFilter serviceRateLimitFilter;
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
+    private final UserProperties userProperties;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -52,8 +59,12 @@ public class SecurityConfig {
                                 "/webjars/**"
                         ).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Public verification keys (JWKS) for services that verify tokens themselves
+                        .requestMatchers("/.well-known/**").permitAll()
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        // Token introspection and other calls from the gateway and sibling services
+                        .requestMatchers("/api/service/**").hasRole("SERVICE")
                         .requestMatchers("/api/content/**", "/api/user/me").hasAnyRole("ADMIN", "CONTENT_MANAGER")
                         .requestMatchers("/ws", "/api/schedulescreens/**", "/api/screens/**", "/api/screen-groups/**").hasAnyRole("DISPLAY", "ADMIN", "CONTENT_MANAGER", "USER")
                         .requestMatchers("/api/schedules/**").hasAnyRole("ADMIN", "CONTENT_MANAGER")
@@ -72,14 +83,27 @@ public class SecurityConfig {
                         })*/
                 )
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // Reject login and registration floods before any user lookup or password hashing
+                .addFilterBefore(authRateLimitFilter, JwtAuthenticationFilter.class)
+                // Limit each service client once its token has identified it
+                .addFilterAfter(serviceRateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * BCrypt behind {@code {id}} prefixes, at a strength either pinned with {@code users.password.bcrypt-strength}
+     * or calibrated at startup to take about {@code users.password.target-hash-ms} on this machine.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        UserProperties.Password password = userProperties.getPassword();
+        int strength = password.getBcryptStrength() > 0
+                ? password.getBcryptStrength()
+                : PasswordEncoders.calibrateBcryptStrength(password.getTargetHashMs(),
+                        password.getMinBcryptStrength(), password.getMaxBcryptStrength());
+        return PasswordEncoders.delegating(strength);
     }
 
     // Rename this method to be more specific
@@ -88,6 +112,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash on successful login when the stored hash is unprefixed or weaker than the current strength
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
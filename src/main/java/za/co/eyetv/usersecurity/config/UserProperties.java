@@ -0,0 +1,159 @@
+package za.co.eyetv.usersecurity.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for user lookups and user-related background work.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "users")
+public class UserProperties {
+
+    private PrincipalCache principalCache = new PrincipalCache();
+
+    private Activity activity = new Activity();
+
+    private Password password = new Password();
+
+    private Lockout lockout = new Lockout();
+
+    private Bulk bulk = new Bulk();
+
+    private Export export = new Export();
+
+    @Getter
+    @Setter
+    public static class PrincipalCache {
+        private boolean enabled = true;
+
+        private long maximumSize = 50_000;
+
+        /**
+         * Upper bound on staleness if an invalidation event is lost.
+         */
+        private long ttlMs = 300_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Activity {
+        private boolean enabled = true;
+
+        /**
+         * How often recorded activity is written to {@code users.last_active}; also the staleness of that column.
+         */
+        private long flushIntervalMs = 30_000;
+
+        /**
+         * Users updated per statement.
+         */
+        private int maxBatchSize = 5_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Password {
+        /**
+         * Threads hashing and verifying passwords; 0 means one per available core.
+         */
+        private int hashingThreads = 0;
+
+        /**
+         * Logins and registrations that may wait for a hashing thread before new ones are rejected with 503.
+         */
+        private int hashingQueueCapacity = 100;
+
+        /**
+         * Fixed BCrypt strength; 0 calibrates it at startup against {@code targetHashMs}.
+         * Pin it when nodes run on different hardware so they agree on one strength.
+         */
+        private int bcryptStrength = 0;
+
+        /**
+         * Time one hash should take on this machine when the strength is calibrated.
+         */
+        private long targetHashMs = 100;
+
+        private int minBcryptStrength = 10;
+
+        private int maxBcryptStrength = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Lockout {
+        private boolean enabled = true;
+
+        /**
+         * Failed logins for one account within {@code windowMs} that lock the account.
+         */
+        private int accountMaxFailures = 5;
+
+        /**
+         * Failed logins from one IP within {@code windowMs}, across accounts, that lock the IP.
+         */
+        private int sourceMaxFailures = 20;
+
+        private long windowMs = 900_000;
+
+        /**
+         * Length of the first lock; each further lock of the same key doubles it, up to {@code maxLockMs}.
+         */
+        private long baseLockMs = 60_000;
+
+        private long maxLockMs = 3_600_000;
+
+        /**
+         * Accounts and IPs tracked per node; the least recently used are dropped beyond this.
+         */
+        private long maximumTracked = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        /**
+         * Users hashed and inserted together; also the rows per insert statement.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Threads hashing bulk registrations and imports, apart from the login pool; 0 means half the cores.
+         */
+        private int hashingThreads = 0;
+
+        /**
+         * Bulk hashing slices that may wait for a thread before new bulk work is rejected with 503.
+         */
+        private int hashingQueueCapacity = 64;
+
+        /**
+         * Import batches that may be hashing or waiting to be written at once; parsing pauses beyond this.
+         */
+        private int maxInFlightBatches = 2;
+
+        /**
+         * Failed rows listed individually in an import report; further failures are only counted.
+         */
+        private int maxReportedErrors = 1_000;
+
+        /**
+         * Longest import line read into memory; longer lines are skipped and reported as failed rows.
+         */
+        private int maxLineLength = 4_096;
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        /**
+         * How long one export download may run; applies to the export endpoint only.
+         */
+        private long timeoutMs = 1_800_000;
+    }
+}
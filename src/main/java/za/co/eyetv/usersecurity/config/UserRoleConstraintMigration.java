@@ -0,0 +1,56 @@
+package za.co.eyetv.usersecurity.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Widens the {@code users_role_check} constraint Hibernate generated for {@code users.role} when a role is
+ * added to {@link Roles}; {@code ddl-auto=update} never alters an existing check constraint, so rows with the
+ * new role would be refused.
+ *
+ * A no-op when the constraint already allows every role or does not exist. The new constraint is added
+ * {@code NOT VALID} and validated afterwards, so the table is not locked against writes while it is checked.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class UserRoleConstraintMigration {
+
+    private static final String CONSTRAINT = "users_role_check";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRoleConstraintMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        List<String> definitions = jdbcTemplate.queryForList("""
+                SELECT pg_get_constraintdef(oid) FROM pg_constraint
+                WHERE conname = ? AND conrelid = 'users'::regclass""", String.class, CONSTRAINT);
+        if (definitions.isEmpty()) {
+            return;
+        }
+        String definition = definitions.get(0);
+        if (Arrays.stream(Roles.values()).allMatch(role -> definition.contains("'" + role.name() + "'"))) {
+            return;
+        }
+
+        String roles = Arrays.stream(Roles.values())
+                .map(role -> "'" + role.name() + "'")
+                .collect(Collectors.joining(", "));
+        log.info("Widening {} to roles {}", CONSTRAINT, roles);
+        jdbcTemplate.execute("ALTER TABLE users DROP CONSTRAINT IF EXISTS " + CONSTRAINT + ", "
+                + "ADD CONSTRAINT " + CONSTRAINT + " CHECK (role IN (" + roles + ")) NOT VALID");
+        jdbcTemplate.execute("ALTER TABLE users VALIDATE CONSTRAINT " + CONSTRAINT);
+    }
+}
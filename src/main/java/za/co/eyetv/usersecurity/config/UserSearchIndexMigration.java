@@ -0,0 +1,144 @@
+package za.co.eyetv.usersecurity.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the indexes that serve search over {@code users}, which JPA cannot declare.
+ *
+ * Each searched column gets a {@code pg_trgm} GIN index on {@code lower(column) gin_trgm_ops}, so
+ * {@code lower(col) LIKE '%x%'} and {@code similarity()} ranking are answered from the index instead of a
+ * sequential scan, and a btree index on {@code lower(column) text_pattern_ops} for {@code LIKE 'x%'} prefix
+ * matches of terms too short to contain a trigram. Indexes are built {@code CONCURRENTLY} so an existing table
+ * stays writable, and one left invalid by an interrupted build is dropped and rebuilt. If the extension cannot
+ * be created (e.g. no privilege), search still works without similarity ranking and without the trigram indexes.
+ *
+ * Building indexes on a large table takes minutes, so the migration runs on its own thread after startup and
+ * search falls back to unranked matching until it is done. Nodes starting together are serialised by a
+ * session-level advisory lock taken with {@code pg_try_advisory_lock}: a node that does not get it waits
+ * without holding a transaction open, which {@code CREATE INDEX CONCURRENTLY} would otherwise wait for.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class UserSearchIndexMigration {
+
+    static final List<String> SEARCHED_COLUMNS = List.of("name", "email", "username");
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext('users_search_indexes'))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext('users_search_indexes'))";
+    private static final long LOCK_RETRY_MS = TimeUnit.SECONDS.toMillis(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean trigramAvailable;
+
+    public UserSearchIndexMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread thread = new Thread(() -> {
+            try {
+                migrate();
+            } catch (DataAccessException e) {
+                log.error("User search index migration failed, search runs without indexes: {}", e.getMessage(), e);
+            }
+        }, "user-search-index-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Creates the extension and indexes on one connection, holding the advisory lock throughout.
+     */
+    public void migrate() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            // The advisory lock belongs to the session, so every statement must use this connection
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!awaitLock(session)) {
+                return null;
+            }
+            try {
+                migrate(session);
+            } finally {
+                session.queryForObject(UNLOCK_SQL, Boolean.class);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Whether {@code similarity()} and the trigram indexes can be used.
+     */
+    public boolean isTrigramAvailable() {
+        return trigramAvailable;
+    }
+
+    private boolean awaitLock(JdbcTemplate session) {
+        while (!Boolean.TRUE.equals(session.queryForObject(TRY_LOCK_SQL, Boolean.class))) {
+            log.info("Another node is building the user search indexes, waiting");
+            try {
+                Thread.sleep(LOCK_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void migrate(JdbcTemplate session) {
+        for (String column : SEARCHED_COLUMNS) {
+            try {
+                createIndex(session, "idx_users_" + column + "_prefix", "(lower(" + column + ") text_pattern_ops)");
+            } catch (DataAccessException e) {
+                // Short terms still answer, only slower; the build is retried on the next start
+                log.error("Failed to create prefix index on users ({}): {}", column, e.getMessage(), e);
+            }
+        }
+
+        try {
+            session.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (DataAccessException e) {
+            log.warn("pg_trgm is not available, user search will not use trigram indexes: {}", e.getMessage());
+            return;
+        }
+        for (String column : SEARCHED_COLUMNS) {
+            try {
+                createIndex(session, "idx_users_" + column + "_trgm", "USING gin (lower(" + column + ") gin_trgm_ops)");
+            } catch (DataAccessException e) {
+                // Search still answers, only slower; the build is retried on the next start
+                log.error("Failed to create trigram index on users ({}): {}", column, e.getMessage(), e);
+            }
+        }
+        trigramAvailable = true;
+    }
+
+    private void createIndex(JdbcTemplate session, String index, String definition) {
+        Boolean valid = session.query("""
+                SELECT i.indisvalid FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE c.relname = ? AND pg_table_is_visible(c.oid)""",
+                rs -> rs.next() ? rs.getBoolean(1) : null, index);
+        if (Boolean.TRUE.equals(valid)) {
+            return;
+        }
+        if (valid != null) {
+            log.warn("Dropping invalid index {} left by an interrupted build", index);
+            session.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+        }
+        log.info("Creating index {} on users {}", index, definition);
+        // CONCURRENTLY cannot run inside a transaction; the pooled connection is in autocommit
+        session.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index + " ON users " + definition);
+    }
+}
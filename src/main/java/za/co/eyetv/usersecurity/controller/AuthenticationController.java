@@ -1,17 +1,22 @@
 package za.co.eyetv.usersecurity.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import za.co.eyetv.usersecurity.security.SecurityUtils;
 import za.co.eyetv.usersecurity.service.AuthenticationService;
 import za.co.eyetv.usersecurity.service.LogoutService;
 import za.co.eyetv.usersecurity.dto.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @author: Rethabile Ntsekhe
  * @date: @date: 09-04-2025
@@ -32,19 +37,20 @@ public class AuthenticationController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<AuthenticationResponse> register(
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> register(
             @Valid @RequestBody RegisterRequest request
     ) {
         log.info("Registering new user: {}", request);
-        return ResponseEntity.ok(authenticationService.register(request));
+        return authenticationService.registerAsync(request).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthenticationResponse> login(
-            @Valid @RequestBody LoginRequest request
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> login(
+            @Valid @RequestBody LoginRequest request,
+            HttpServletRequest httpRequest
     ) {
         log.info("Logging in user: {}", request);
-        return ResponseEntity.ok(authenticationService.login(request));
+        return authenticationService.loginAsync(request, httpRequest.getRemoteAddr()).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/refresh")
@@ -69,4 +75,11 @@ public class AuthenticationController {
         );
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<LogoutResponse> logoutEverywhere() {
+        return SecurityUtils.getCurrentUserLogin()
+                .map(email -> ResponseEntity.ok(logoutService.logoutEverywhere(email)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+}
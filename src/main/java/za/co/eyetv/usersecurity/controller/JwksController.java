@@ -0,0 +1,60 @@
+package za.co.eyetv.usersecurity.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.security.JsonWebKeys;
+import za.co.eyetv.usersecurity.security.JwtKeyRing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the public token verification keys as a JSON Web Key Set, so other services can verify
+ * tokens locally and pick the key by the token's {@code kid}.
+ *
+ * The keys are fixed at startup, so the document and its ETag are built once. Clients may cache it for
+ * {@code jwt.signing.jwks-max-age-seconds} and revalidate with {@code If-None-Match}, which Spring answers
+ * with 304. After a rotation, verifiers that meet an unknown {@code kid} should refetch the set rather
+ * than wait for their cached copy to expire.
+ */
+@RestController
+@Slf4j
+public class JwksController {
+
+    private final byte[] document;
+    private final String eTag;
+    private final CacheControl cacheControl;
+
+    @Autowired
+    public JwksController(JwtKeyRing keyRing, JwtProperties jwtProperties, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        List<Map<String, Object>> keys = keyRing.getPublishedKeys().stream()
+                .map(key -> JsonWebKeys.toJwk(key.keyId(),
+                        key.algorithm() != null ? key.algorithm().getValue() : null, key.key()))
+                .toList();
+        this.document = objectMapper.writeValueAsBytes(Map.of("keys", keys));
+        this.eTag = "\"" + Hashing.sha256().hashBytes(document).toString().substring(0, 16) + "\"";
+        this.cacheControl = CacheControl.maxAge(jwtProperties.getSigning().getJwksMaxAgeSeconds(), TimeUnit.SECONDS)
+                .cachePublic();
+        log.info("Publishing {} JWT verification key(s) at /.well-known/jwks.json", keys.size());
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .eTag(eTag)
+                .body(document);
+    }
+}
@@ -0,0 +1,47 @@
+package za.co.eyetv.usersecurity.controller;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import za.co.eyetv.usersecurity.dto.TokenIntrospectionRequest;
+import za.co.eyetv.usersecurity.dto.TokenIntrospectionResponse;
+import za.co.eyetv.usersecurity.service.TokenIntrospectionService;
+
+/**
+ * Endpoints for the gateway and sibling services. Callers authenticate with an access token of a
+ * {@code SERVICE} account, and each account is rate limited on its own by
+ * {@link za.co.eyetv.usersecurity.security.ServiceRateLimitFilter}.
+ */
+@RestController
+@RequestMapping("/api/service")
+@Slf4j
+public class TokenIntrospectionController {
+
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    public TokenIntrospectionController(TokenIntrospectionService tokenIntrospectionService) {
+        this.tokenIntrospectionService = tokenIntrospectionService;
+    }
+
+    /**
+     * Validates a batch of access tokens in one round trip.
+     *
+     * Every token gets a result in request order: token type, subject, user id, roles and expiry when it is
+     * active, or just {@code active=false} when it is malformed, wrongly signed, expired, revoked or a refresh token.
+     */
+    @PostMapping("/introspect")
+    public ResponseEntity<TokenIntrospectionResponse> introspect(
+            @Valid @RequestBody TokenIntrospectionRequest request
+    ) {
+        log.debug("Introspecting {} token(s)", request.getTokens().size());
+        return ResponseEntity.ok(TokenIntrospectionResponse.builder()
+                .tokens(tokenIntrospectionService.introspect(request.getTokens()))
+                .build());
+    }
+}
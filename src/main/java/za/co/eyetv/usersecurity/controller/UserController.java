@@ -1,16 +1,37 @@
 package za.co.eyetv.usersecurity.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import za.co.eyetv.usersecurity.config.UserProperties;
 import za.co.eyetv.usersecurity.model.User;
 import za.co.eyetv.usersecurity.dto.UserDTO;
+import za.co.eyetv.usersecurity.dto.BulkRegistrationRequest;
+import za.co.eyetv.usersecurity.dto.BulkRegistrationResponse;
+import za.co.eyetv.usersecurity.dto.LoginLockDTO;
+import za.co.eyetv.usersecurity.dto.UserImportReport;
+import za.co.eyetv.usersecurity.dto.UserPageDTO;
+import za.co.eyetv.usersecurity.dto.UserSearchResultDTO;
+import za.co.eyetv.usersecurity.model.enums.Roles;
 import za.co.eyetv.usersecurity.security.SecurityUtils;
-import za.co.eyetv.usersecurity.model.UserPrincipal;
+import za.co.eyetv.usersecurity.service.BulkRegistrationService;
+import za.co.eyetv.usersecurity.service.LoginAttemptService;
+import za.co.eyetv.usersecurity.service.UserExportService;
+import za.co.eyetv.usersecurity.service.UserImportService;
+import za.co.eyetv.usersecurity.service.UserSearchService;
 import za.co.eyetv.usersecurity.service.UserService;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,11 +42,17 @@ import java.util.Optional;
  * This controller provides endpoints for:
  * - User profile retrieval for the authenticated user (/api/user/me)
  * - Administrative operations on users (/admin/users/*)
- *   - List all users
+ *   - List users, filtered and keyset-paginated
+ *   - Search users by name, email or username
  *   - Get user by ID
  *   - Update user
  *   - Delete user
  *   - Toggle user active status
+ *   - Revoke all tokens of a user
+ *   - List and lift login locks
+ *   - Register users in bulk
+ *   - Import users from a streamed NDJSON or CSV file
+ *   - Export all users as a streamed NDJSON or CSV file
  *
  * All administrative endpoints require ADMIN role.
  *
@@ -38,10 +65,28 @@ import java.util.Optional;
 public class UserController {
 
     private final UserService userService;
+    private final LoginAttemptService loginAttemptService;
+    private final BulkRegistrationService bulkRegistrationService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final UserSearchService userSearchService;
+    private final UserProperties userProperties;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          LoginAttemptService loginAttemptService,
+                          BulkRegistrationService bulkRegistrationService,
+                          UserImportService userImportService,
+                          UserExportService userExportService,
+                          UserSearchService userSearchService,
+                          UserProperties userProperties) {
         this.userService = userService;
+        this.loginAttemptService = loginAttemptService;
+        this.bulkRegistrationService = bulkRegistrationService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.userSearchService = userSearchService;
+        this.userProperties = userProperties;
     }
 
     /**
@@ -54,27 +99,53 @@ public class UserController {
      */
     @GetMapping("/api/user/me")
     public ResponseEntity<?> getCurrentUser() {
-        Optional<UserPrincipal> currentUserPrincipal = SecurityUtils.getCurrentUserPrincipal();
-
-        if (currentUserPrincipal.isPresent()) {
-            UserPrincipal userPrincipal = currentUserPrincipal.get();
-            User user = userPrincipal.getUser();
-
-            // Create a response with user details (excluding sensitive information) 
-            return ResponseEntity.ok(user);
-        } else {
-            return ResponseEntity.status(401).body("User not authenticated");
+        // Read only the profile columns (excluding sensitive information), whichever principal type is in the context;
+        // User.getUsername() returns the email, so the cached entity cannot supply the display username
+        Optional<String> currentUserLogin = SecurityUtils.getCurrentUserLogin();
+        if (currentUserLogin.isPresent()) {
+            return ResponseEntity.ok(userService.getUserDTOByEmail(currentUserLogin.get()));
         }
+        return ResponseEntity.status(401).body("User not authenticated");
     }
 
     /**
-     * Get all users in the system
-     * @return list of all users
+     * List users page by page, ordered by creation time
+     * @param role only users with this role
+     * @param active only active or only inactive users
+     * @param lastActiveFrom only users last active at or after this instant
+     * @param lastActiveBefore only users last active before this instant
+     * @param direction ASC (oldest first, default) or DESC; ignored when a cursor is given
+     * @param cursor the nextCursor of the previous page, omitted for the first page
+     * @param size users per page, at most 200
+     * @return the page and the cursor of the next one
      */
     @GetMapping("/admin/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<UserPageDTO<UserDTO>> getAllUsers(
+            @RequestParam(required = false) Roles role,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Instant lastActiveFrom,
+            @RequestParam(required = false) Instant lastActiveBefore,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(userService.listUsers(role, active, lastActiveFrom, lastActiveBefore, direction, cursor, size));
+    }
+
+    /**
+     * Search users whose name, email or username contains the term, best matches first
+     * @param q the term; terms shorter than 3 characters only match the start of a name, email or username
+     * @param limit maximum number of results, at most 100
+     * @return the matching users, ranked
+     */
+    @GetMapping("/admin/users/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<UserSearchResultDTO>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
+        return ResponseEntity.ok(userSearchService.search(q, limit));
     }
 
     /**
@@ -84,10 +155,9 @@ public class UserController {
      */
     @GetMapping("/admin/users/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        User user = userService.getUserById(id);
-        log.info("Fetching user with ID: {}", user);
-        return ResponseEntity.ok(user);
+    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+        log.info("Fetching user with ID: {}", id);
+        return ResponseEntity.ok(userService.getUserDTOById(id));
     }
 
     /**
@@ -131,4 +201,96 @@ public class UserController {
         User updatedUser = userService.toggleUserStatus(id);
         return ResponseEntity.ok(updatedUser);
     }
+
+    /**
+     * Revoke every outstanding token of a user, logging them out everywhere
+     * @param id the user ID
+     * @return a message indicating the result of the operation
+     */
+    @PostMapping("/admin/users/{id}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> revokeAllTokens(@PathVariable Long id) {
+        userService.revokeAllTokens(id);
+        return ResponseEntity.ok("All tokens revoked");
+    }
+
+    /**
+     * List accounts and source IPs with recent failed logins or an active lock on this node
+     * @return the tracked login locks, currently locked first
+     */
+    @GetMapping("/admin/login-locks")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<LoginLockDTO>> getLoginLocks() {
+        return ResponseEntity.ok(loginAttemptService.getLocks());
+    }
+
+    /**
+     * Lift a login lock on a user's account
+     * @param id the user ID
+     * @return a message indicating the result of the operation
+     */
+    @DeleteMapping("/admin/users/{id}/lock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> unlockUser(@PathVariable Long id) {
+        User user = userService.getUserById(id);
+        loginAttemptService.unlockAccount(user.getEmail());
+        return ResponseEntity.ok("Account unlocked");
+    }
+
+    /**
+     * Register many users in one request; taken emails and usernames are skipped, not failed
+     * @param request the users to create and the role they get
+     * @return counts of created and skipped users
+     */
+    @PostMapping("/admin/users/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkRegistrationResponse> registerUsers(@Valid @RequestBody BulkRegistrationRequest request) {
+        return ResponseEntity.ok(bulkRegistrationService.register(request));
+    }
+
+    /**
+     * Import users from a streamed body, one JSON object per line or CSV with an
+     * {@code email,username,password} header; the body is read incrementally, never buffered whole
+     * @param role the role every imported user gets, USER by default
+     * @param request the request whose body is the file
+     * @return counts, throughput and the rows that failed
+     */
+    @PostMapping(value = "/admin/users/import", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<UserImportReport> importUsers(
+            @RequestParam(required = false) Roles role,
+            HttpServletRequest request
+    ) throws IOException {
+        UserImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        return ResponseEntity.ok(userImportService.importUsers(request.getInputStream(), format, role));
+    }
+
+    /**
+     * Export every user, streamed straight from a database cursor to the response
+     *
+     * Runs as an async request with its own {@code users.export.timeout-ms}, so only this endpoint may take minutes.
+     * @param format ndjson (default) or csv
+     * @param response written directly with the users as a file download, without password hashes
+     * @return the async export
+     */
+    @GetMapping("/admin/users/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebAsyncTask<Void> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                          HttpServletResponse response) {
+        UserExportService.Format exportFormat = "csv".equalsIgnoreCase(format)
+                ? UserExportService.Format.CSV
+                : UserExportService.Format.NDJSON;
+        String extension = exportFormat == UserExportService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(exportFormat == UserExportService.Format.CSV
+                ? "text/csv"
+                : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + extension + "\"");
+        return new WebAsyncTask<>(userProperties.getExport().getTimeoutMs(), () -> {
+            userExportService.export(response.getOutputStream(), exportFormat);
+            // The response has been written; nothing is left for a view or converter
+            return null;
+        });
+    }
 }
@@ -0,0 +1,24 @@
+package za.co.eyetv.usersecurity.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRegistrationRequest {
+    /**
+     * Role given to every user in the request; defaults to {@link Roles#USER}.
+     */
+    private Roles role;
+
+    @NotEmpty
+    @Size(max = 10_000)
+    private List<@Valid RegisterRequest> users;
+}
@@ -0,0 +1,25 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRegistrationResponse {
+    /**
+     * False if the request stopped early; users after the first {@code processed} were not attempted.
+     */
+    private boolean completed;
+    private String error;
+    private int requested;
+    private int processed;
+    private int created;
+    /**
+     * Emails not created because the email or username is already taken.
+     */
+    private List<String> skipped;
+    private long elapsedMs;
+}
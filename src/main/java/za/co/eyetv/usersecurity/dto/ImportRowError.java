@@ -0,0 +1,13 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRowError {
+    private long line;
+    private String email;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginLockDTO {
+    private String scope;
+    private String key;
+    private int recentFailures;
+    private int lockCount;
+    private Instant lockedUntil;
+}
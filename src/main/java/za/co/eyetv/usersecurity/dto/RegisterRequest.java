@@ -2,6 +2,7 @@ package za.co.eyetv.usersecurity.dto;
 
 import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,8 +21,10 @@ import org.checkerframework.common.aliasing.qual.Unique;
 public class RegisterRequest {
     @Unique
     private String username;
+    @NotBlank
     @Email(message = "Please provide a valid email address")
     private String email;
+    @NotBlank
     @Pattern(regexp = "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=])(?=\\S+$).{8,}$")
     private String password;
 }
@@ -0,0 +1,31 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result for one introspected token. Inactive tokens carry no claims, whatever the reason they were rejected.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenIntrospectionDTO {
+    private boolean active;
+    /**
+     * Always {@code ACCESS} for an active token; refresh tokens are reported as inactive.
+     */
+    private TokenType tokenType;
+    private String subject;
+    private Long userId;
+    private List<String> roles;
+    private Instant issuedAt;
+    private Instant expiresAt;
+
+    public static TokenIntrospectionDTO inactive() {
+        return TokenIntrospectionDTO.builder().active(false).build();
+    }
+}
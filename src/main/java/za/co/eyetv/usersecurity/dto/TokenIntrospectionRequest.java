@@ -0,0 +1,20 @@
+package za.co.eyetv.usersecurity.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenIntrospectionRequest {
+    /**
+     * Access tokens, with or without the {@code Bearer } prefix; refresh tokens are reported as inactive.
+     */
+    @NotEmpty
+    @Size(max = 1_000)
+    private List<String> tokens;
+}
@@ -0,0 +1,16 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenIntrospectionResponse {
+    /**
+     * One result per requested token, in request order.
+     */
+    private List<TokenIntrospectionDTO> tokens;
+}
@@ -22,9 +22,13 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserDTO {
+    private Long id;
     @Email(message = "Please provide a valid email address")
     private String email;
+    private String name;
     private String username;
     private List<String> roles;
+    private Boolean active;
+    private Instant createdAt;
     private Instant lastActive = Instant.now();
 }
@@ -0,0 +1,24 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+import java.time.Instant;
+
+/**
+ * One exported user; everything needed to recreate the account except the password hash.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserExportDTO {
+    private Long id;
+    private String email;
+    private String name;
+    private String username;
+    private Roles role;
+    private Boolean active;
+    private Instant createdAt;
+    private Instant lastActive;
+}
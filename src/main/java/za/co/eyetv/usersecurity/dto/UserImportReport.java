@@ -0,0 +1,30 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserImportReport {
+    /**
+     * False if the import stopped early; {@code error} says why.
+     */
+    private boolean completed;
+    private String error;
+    private long read;
+    private long created;
+    /**
+     * Rows whose email or username was already taken.
+     */
+    private long skipped;
+    private long failed;
+    /**
+     * The first failed rows, up to {@code users.bulk.max-reported-errors}.
+     */
+    private List<ImportRowError> errors;
+    private long elapsedMs;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,20 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing; pass {@code nextCursor} back to get the following page.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserPageDTO<T> {
+    private List<T> items;
+    /**
+     * Null on the last page.
+     */
+    private String nextCursor;
+}
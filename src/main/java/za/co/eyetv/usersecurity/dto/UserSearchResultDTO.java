@@ -0,0 +1,21 @@
+package za.co.eyetv.usersecurity.dto;
+
+import lombok.*;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSearchResultDTO {
+    private Long id;
+    private String email;
+    private String name;
+    private String username;
+    private Roles role;
+    private Boolean active;
+    /**
+     * Higher is a better match; prefix matches rank above substring matches.
+     */
+    private double score;
+}
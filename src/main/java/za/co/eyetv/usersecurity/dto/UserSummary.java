@@ -0,0 +1,21 @@
+package za.co.eyetv.usersecurity.dto;
+
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+import java.time.Instant;
+
+/**
+ * The columns of {@code users} that user read endpoints return, selected directly into this record so no
+ * entity is created or managed. The password hash is never read.
+ */
+public record UserSummary(
+        Long id,
+        String email,
+        String name,
+        String username,
+        Roles role,
+        Boolean active,
+        Instant createdAt,
+        Instant lastActive
+) {
+}
@@ -0,0 +1,42 @@
+package za.co.eyetv.usersecurity.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Slf4j
+abstract class AbstractRevocationEventBus implements RevocationEventBus {
+
+    protected final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<RevocationEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void subscribe(Consumer<RevocationEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void publish(RevocationEvent event) {
+        RevocationEvent stamped = event.withOrigin(nodeId);
+        deliver(stamped);
+        broadcast(stamped);
+    }
+
+    /**
+     * Sends a locally delivered event to the other nodes.
+     */
+    protected abstract void broadcast(RevocationEvent event);
+
+    protected void deliver(RevocationEvent event) {
+        for (Consumer<RevocationEvent> subscriber : subscribers) {
+            try {
+                subscriber.accept(event);
+            } catch (Exception e) {
+                log.error("Revocation event subscriber failed for {}: {}", event, e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package za.co.eyetv.usersecurity.event;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-node bus for tests and local development: events only reach subscribers in this JVM.
+ */
+@Component
+@ConditionalOnProperty(prefix = "jwt.revocation-bus", name = "type", havingValue = "memory")
+public class InMemoryRevocationEventBus extends AbstractRevocationEventBus {
+
+    @Override
+    protected void broadcast(RevocationEvent event) {
+        // Nothing to do: local subscribers already received the event
+    }
+}
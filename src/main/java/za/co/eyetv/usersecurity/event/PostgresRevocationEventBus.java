@@ -0,0 +1,130 @@
+package za.co.eyetv.usersecurity.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Cluster-wide bus on Postgres {@code LISTEN/NOTIFY}.
+ *
+ * Events are sent with {@code pg_notify}, so when published inside a transaction they are only
+ * delivered once it commits. Each node listens on a dedicated connection outside the Hikari pool.
+ * After that connection is lost notifications may have been missed, so a {@link RevocationEvent.Type#RESYNC}
+ * is delivered locally once the listener is back.
+ */
+@Component
+@ConditionalOnProperty(prefix = "jwt.revocation-bus", name = "type", havingValue = "postgres", matchIfMissing = true)
+@Slf4j
+public class PostgresRevocationEventBus extends AbstractRevocationEventBus {
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectMapper objectMapper;
+    private final JwtProperties.RevocationBus properties;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresRevocationEventBus(JdbcTemplate jdbcTemplate,
+                                      DataSourceProperties dataSourceProperties,
+                                      ObjectMapper objectMapper,
+                                      JwtProperties jwtProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.objectMapper = objectMapper;
+        this.properties = jwtProperties.getRevocationBus();
+        if (!properties.getChannel().matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid revocation bus channel: " + properties.getChannel());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "revocation-bus-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    @Override
+    protected void broadcast(RevocationEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", properties.getChannel(), payload);
+        } catch (Exception e) {
+            log.error("Failed to broadcast revocation event {}: {}", event, e.getMessage(), e);
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                log.info("Listening for revocation events on channel '{}'", properties.getChannel());
+                if (reconnecting) {
+                    deliver(RevocationEvent.resync());
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Revocation event listener lost its connection, retrying in {} ms: {}",
+                        properties.getReconnectDelayMs(), e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(properties.getReconnectDelayMs());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        try {
+            RevocationEvent event = objectMapper.readValue(payload, RevocationEvent.class);
+            if (!nodeId.equals(event.origin())) {
+                deliver(event);
+            }
+        } catch (Exception e) {
+            log.error("Ignoring malformed revocation event '{}': {}", payload, e.getMessage());
+        }
+    }
+}
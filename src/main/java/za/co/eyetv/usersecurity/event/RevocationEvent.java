@@ -0,0 +1,46 @@
+package za.co.eyetv.usersecurity.event;
+
+import java.time.Instant;
+
+/**
+ * A change that makes locally cached authentication state stale on every node.
+ *
+ * @param type      what changed
+ * @param subject   email of the affected user, if any
+ * @param tokenDigest hex revocation digest of a blacklisted token, if any
+ * @param expiresAt expiry of the blacklisted token, if any
+ * @param origin    id of the node that published the event
+ */
+public record RevocationEvent(Type type, String subject, String tokenDigest, Instant expiresAt, String origin) {
+
+    public enum Type {
+        /** A token was added to the blacklist. */
+        TOKEN_BLACKLISTED,
+        /** A user's token version, roles, status or identity changed. */
+        USER_CHANGED,
+        /** A login lock on the user was lifted; forget the account's failed attempts. */
+        ACCOUNT_UNLOCKED,
+        /** Events may have been missed (e.g. the bus reconnected); drop or reload all cached state. */
+        RESYNC
+    }
+
+    public static RevocationEvent tokenBlacklisted(String subject, String tokenDigest, Instant expiresAt) {
+        return new RevocationEvent(Type.TOKEN_BLACKLISTED, subject, tokenDigest, expiresAt, null);
+    }
+
+    public static RevocationEvent userChanged(String email) {
+        return new RevocationEvent(Type.USER_CHANGED, email, null, null, null);
+    }
+
+    public static RevocationEvent accountUnlocked(String email) {
+        return new RevocationEvent(Type.ACCOUNT_UNLOCKED, email, null, null, null);
+    }
+
+    public static RevocationEvent resync() {
+        return new RevocationEvent(Type.RESYNC, null, null, null, null);
+    }
+
+    RevocationEvent withOrigin(String origin) {
+        return new RevocationEvent(type, subject, tokenDigest, expiresAt, origin);
+    }
+}
@@ -0,0 +1,16 @@
+package za.co.eyetv.usersecurity.event;
+
+import java.util.function.Consumer;
+
+/**
+ * Propagates revocations and user changes to the in-memory caches of every node.
+ *
+ * {@link #publish} delivers the event to local subscribers synchronously before broadcasting it,
+ * so the publishing node never serves stale state. Subscribers must be idempotent.
+ */
+public interface RevocationEventBus {
+
+    void publish(RevocationEvent event);
+
+    void subscribe(Consumer<RevocationEvent> subscriber);
+}
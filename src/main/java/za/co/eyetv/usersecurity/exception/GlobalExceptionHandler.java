@@ -4,6 +4,7 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -17,6 +18,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import za.co.eyetv.usersecurity.dto.ErrorDTO;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -71,6 +74,14 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorDTO("Account is disabled", HttpStatus.FORBIDDEN, request));
     }
 
+    @ExceptionHandler(LoginLockedException.class)
+    public ResponseEntity<ErrorDTO> handleLoginLockedException(LoginLockedException e, WebRequest request) {
+        long retryAfterSeconds = Math.max(1, Duration.between(Instant.now(), e.getLockedUntil()).toSeconds() + 1);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(createErrorDTO(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS, request));
+    }
+
     @ExceptionHandler(LockedException.class)
     public ResponseEntity<ErrorDTO> handleLockedException(LockedException e, WebRequest request) {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(createErrorDTO("Account is locked", HttpStatus.FORBIDDEN, request));
@@ -109,6 +120,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(createErrorDTO(e.getMessage(), HttpStatus.TOO_MANY_REQUESTS, request));
     }
 
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ErrorDTO> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException e, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(createErrorDTO(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, request));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorDTO> handleInvalidCursorException(InvalidCursorException e, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(createErrorDTO(e.getMessage(), HttpStatus.BAD_REQUEST, request));
+    }
+
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<ErrorDTO> handleEmailAlreadyExistsException(EmailAlreadyExistsException e, WebRequest request) {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorDTO(e.getMessage(), HttpStatus.CONFLICT, request));
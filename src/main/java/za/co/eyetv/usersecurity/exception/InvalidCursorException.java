@@ -0,0 +1,10 @@
+package za.co.eyetv.usersecurity.exception;
+
+/**
+ * Thrown when a pagination cursor cannot be decoded; mapped to 400.
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
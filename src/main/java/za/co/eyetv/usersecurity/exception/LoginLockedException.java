@@ -0,0 +1,20 @@
+package za.co.eyetv.usersecurity.exception;
+
+import lombok.Getter;
+import org.springframework.security.authentication.LockedException;
+
+import java.time.Instant;
+
+/**
+ * Thrown when a login is refused because the account or its source is locked after repeated failures.
+ */
+@Getter
+public class LoginLockedException extends LockedException {
+
+    private final Instant lockedUntil;
+
+    public LoginLockedException(Instant lockedUntil) {
+        super("Too many failed login attempts, please retry later");
+        this.lockedUntil = lockedUntil;
+    }
+}
@@ -0,0 +1,10 @@
+package za.co.eyetv.usersecurity.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated; mapped to 503 so clients back off and retry.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -17,14 +17,20 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder(toBuilder = true)
 @Entity
-@Table(name = "blacklisted_tokens")
+@Table(name = "blacklisted_tokens", uniqueConstraints = {
+        // Range-partitioned by expiry_date (see BlacklistedTokenSchemaMigration), so the partition key is part of every unique key
+        @UniqueConstraint(name = "uk_blacklisted_tokens_token_digest", columnNames = {"token_digest", "expiry_date"})
+})
 public class BlacklistedToken {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    /**
+     * SHA-256 of the token's {@code jti} (see {@code TokenDigests}); the token itself is not stored.
+     */
+    @Column(name = "token_digest", nullable = false, length = 32)
+    private byte[] tokenDigest;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -36,5 +42,9 @@ public class BlacklistedToken {
     @CreationTimestamp
     private Instant blacklistedAt;
 
+    /**
+     * The token's {@code exp}; also the partition key, so lookups pass it to reach a single partition.
+     */
+    @Column(name = "expiry_date", nullable = false)
     private Instant expiryDate;
 }
\ No newline at end of file
@@ -5,8 +5,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,8 +25,14 @@ import java.util.Objects;
 @Entity
 // Ensure table name is correct, usually plural 'users'
 @Table(name = "users", uniqueConstraints = {
-        @UniqueConstraint(columnNames = "username"),
-        @UniqueConstraint(columnNames = "email")
+        @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email")
+}, indexes = {
+        // Keyset pagination: the sort key, and the same key behind each equality filter
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_users_role_created_at_id", columnList = "role, created_at, id"),
+        @Index(name = "idx_users_active_created_at_id", columnList = "active, created_at, id"),
+        @Index(name = "idx_users_last_active", columnList = "last_active")
 })
 @Getter
 @Setter
@@ -34,18 +40,24 @@ import java.util.Objects;
 @AllArgsConstructor
 @Builder
 public class User implements UserDetails, Serializable {
+
+    /**
+     * Named so a violation can be traced to the field that collided without another query.
+     */
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String USERNAME_CONSTRAINT = "uk_users_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     @Email(message = "Please provide a valid email address")
     private String email;
 
     @Column(nullable = false)
     private String name;
 
-    @Column(unique = true)
     private String username;
 
     @Column(nullable = false)
@@ -59,12 +71,32 @@ public class User implements UserDetails, Serializable {
     @Builder.Default // Add this to ensure the default value is used with Builder
     private Boolean active = true;
 
-    @UpdateTimestamp
+    /**
+     * Written only by {@code ActivityTracker}, so saving the entity can never move it or roll it back.
+     */
+    @Column(updatable = false)
     private Instant lastActive;
 
     @CreationTimestamp
     private Instant createdAt;
 
+    /**
+     * Revocation epoch embedded in every token as the {@code ver} claim. Incrementing it
+     * invalidates all outstanding tokens of this user with a single write.
+     * Only {@code UserRepository.incrementTokenVersion} changes it, so saving a stale entity
+     * can never roll back a concurrent increment.
+     */
+    @Column(name = "token_version", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer tokenVersion = 0;
+
+    /**
+     * Set when repeated failed logins lock the account; the lock lifts by itself once this passes.
+     */
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
     /**
      * TODO: Uncomment and implement Settings class
      */
@@ -94,7 +126,7 @@ public class User implements UserDetails, Serializable {
 
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        return lockedUntil == null || lockedUntil.isBefore(Instant.now());
     }
 
     @Override
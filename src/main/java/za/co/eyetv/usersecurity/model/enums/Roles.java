@@ -5,5 +5,6 @@ public enum Roles {
     DISPLAY,        // For display screens
     EDITOR,         // Content editing
     CONTENT_MANAGER,// Content management
-    USER           // Basic user access
+    USER,          // Basic user access
+    SERVICE        // Gateways and sibling services calling /api/service/**
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package za.co.eyetv.usersecurity.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import za.co.eyetv.usersecurity.model.BlacklistedToken;
 import za.co.eyetv.usersecurity.model.enums.TokenType;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
 *@author: Rethabile Ntsekhe
@@ -15,11 +21,29 @@ import java.util.List;
 */
 @Repository
 public interface BlacklistedTokenRepository extends JpaRepository<BlacklistedToken, Long> {
-    boolean existsByToken(String token);
+    /**
+     * Deletes at most {@code batchSize} expired tokens in its own short transaction.
+     * Rows locked by a concurrent purge on another node are skipped rather than waited for.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM blacklisted_tokens WHERE id IN (" +
+            "SELECT id FROM blacklisted_tokens WHERE expiry_date < :now LIMIT :batchSize FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int deleteExpiredTokensBatch(Instant now, int batchSize);
 
-    @Query("DELETE FROM BlacklistedToken b WHERE b.expiryDate < :now")
-    int deleteExpiredTokens(Instant now);
+    long countByExpiryDateBefore(Instant now);
 
-    boolean existsByTokenAndTokenType(String token, TokenType tokenType);
+    /**
+     * The expiry date is the token's {@code exp} and the partition key, so this only touches the one
+     * partition that can hold the token.
+     */
+    boolean existsByTokenDigestAndTokenTypeAndExpiryDate(byte[] tokenDigest, TokenType tokenType, Instant expiryDate);
     List<BlacklistedToken> findByExpiryDateBefore(Instant now);
+
+    long countByExpiryDateAfter(Instant now);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.tokenDigest FROM BlacklistedToken b WHERE b.expiryDate > :now")
+    Stream<byte[]> streamTokenDigestsExpiringAfter(Instant now);
 }
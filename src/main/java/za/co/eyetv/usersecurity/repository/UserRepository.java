@@ -1,14 +1,19 @@
 package za.co.eyetv.usersecurity.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
-import za.co.eyetv.usersecurity.model.enums.Roles;
+import org.springframework.transaction.annotation.Transactional;
+import za.co.eyetv.usersecurity.dto.UserSummary;
 import za.co.eyetv.usersecurity.model.User;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for managing {@link User} entities.
@@ -18,7 +23,7 @@ import java.util.Optional;
  * @date 2/3/2025
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserSummaryQueries {
 
     Optional<User> findByEmail(String email);
 
@@ -29,9 +34,47 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByUsernameOrEmail(String username, String email);
 
-    Page<User> findByRole(Roles role, Pageable pageable);
+    @Query("SELECT new za.co.eyetv.usersecurity.dto.UserSummary(u.id, u.email, u.name, u.username, u.role, u.active, " +
+            "u.createdAt, u.lastActive) FROM User u WHERE u.id = :id")
+    Optional<UserSummary> findSummaryById(Long id);
 
-    Page<User> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    @Query("SELECT new za.co.eyetv.usersecurity.dto.UserSummary(u.id, u.email, u.name, u.username, u.role, u.active, " +
+            "u.createdAt, u.lastActive) FROM User u WHERE u.email = :email")
+    Optional<UserSummary> findSummaryByEmail(String email);
 
-    Page<User> findByLastActiveBefore(Instant lastActive, Pageable pageable);
+    /**
+     * Streams every user's summary through a server-side cursor, 1000 rows per fetch. Must be consumed inside
+     * a transaction; no entities are created, so the persistence context does not grow.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new za.co.eyetv.usersecurity.dto.UserSummary(u.id, u.email, u.name, u.username, u.role, u.active, " +
+            "u.createdAt, u.lastActive) FROM User u ORDER BY u.id")
+    Stream<UserSummary> streamAllSummaries();
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.email = :email")
+    Optional<Integer> findTokenVersionByEmail(String email);
+
+    /**
+     * Revokes every outstanding token of the user by bumping the revocation epoch.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(Long id);
+
+    /**
+     * Replaces the stored hash only; used to rehash on login, so outstanding tokens stay valid.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.email = :email")
+    int updatePassword(String email, String password);
+
+    /**
+     * Sets or clears ({@code null}) the login lock; written only when a lock engages or is lifted.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.lockedUntil = :lockedUntil WHERE u.email = :email")
+    int updateLockedUntil(String email, Instant lockedUntil);
 }
@@ -0,0 +1,59 @@
+package za.co.eyetv.usersecurity.repository;
+
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.jpa.domain.Specification;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.util.UserCursor;
+
+import java.time.Instant;
+
+/**
+ * Filters for the admin user listing. Each returns {@code null} when its argument is absent, which
+ * {@link Specification#where} and {@code and} treat as no restriction.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> hasRole(Roles role) {
+        return role == null ? null : (root, query, cb) -> cb.equal(root.get("role"), role);
+    }
+
+    public static Specification<User> isActive(Boolean active) {
+        return active == null ? null : (root, query, cb) -> cb.equal(root.get("active"), active);
+    }
+
+    public static Specification<User> lastActiveFrom(Instant from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("lastActive"), from);
+    }
+
+    public static Specification<User> lastActiveBefore(Instant to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThan(root.get("lastActive"), to);
+    }
+
+    /**
+     * Rows strictly after the cursor in its direction of {@code (createdAt, id)}.
+     *
+     * The plain range bound on {@code createdAt} lets the planner start the {@code (created_at, id)} index scan
+     * at the cursor; the OR makes it exact for rows that share the cursor's timestamp.
+     */
+    public static Specification<User> after(UserCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        boolean ascending = cursor.direction().isAscending();
+        Instant createdAt = cursor.createdAt();
+        return (root, query, cb) -> {
+            Path<Instant> rowCreatedAt = root.get("createdAt");
+            Path<Long> rowId = root.get("id");
+            return cb.and(
+                    ascending ? cb.greaterThanOrEqualTo(rowCreatedAt, createdAt) : cb.lessThanOrEqualTo(rowCreatedAt, createdAt),
+                    cb.or(
+                            ascending ? cb.greaterThan(rowCreatedAt, createdAt) : cb.lessThan(rowCreatedAt, createdAt),
+                            cb.and(cb.equal(rowCreatedAt, createdAt),
+                                    ascending ? cb.greaterThan(rowId, cursor.id()) : cb.lessThan(rowId, cursor.id()))));
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package za.co.eyetv.usersecurity.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import za.co.eyetv.usersecurity.dto.UserSummary;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.util.UserCursor;
+
+import java.util.List;
+
+/**
+ * Keyset-paginated listing of {@link UserSummary} projections, implemented with the Criteria API because
+ * derived and fluent queries cannot combine a {@link Specification}, a keyset and a constructor projection.
+ */
+public interface UserSummaryQueries {
+
+    /**
+     * Users matching {@code filter} ordered by {@code (createdAt, id)} in {@code direction}, starting after
+     * {@code after} if given.
+     *
+     * @param limit maximum number of rows returned
+     */
+    List<UserSummary> findSummaries(Specification<User> filter, Sort.Direction direction, UserCursor after, int limit);
+}
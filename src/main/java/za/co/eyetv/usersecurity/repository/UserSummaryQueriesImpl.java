@@ -0,0 +1,60 @@
+package za.co.eyetv.usersecurity.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import za.co.eyetv.usersecurity.dto.UserSummary;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.util.UserCursor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class UserSummaryQueriesImpl implements UserSummaryQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserSummary> findSummaries(Specification<User> filter, Sort.Direction direction, UserCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = cb.createQuery(UserSummary.class);
+        Root<User> user = query.from(User.class);
+        Path<Instant> createdAt = user.get("createdAt");
+        Path<Long> id = user.get("id");
+
+        query.select(cb.construct(UserSummary.class,
+                id,
+                user.get("email"),
+                user.get("name"),
+                user.get("username"),
+                user.get("role"),
+                user.get("active"),
+                createdAt,
+                user.get("lastActive")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        for (Specification<User> specification : Arrays.asList(filter, UserSpecifications.after(after))) {
+            Predicate predicate = specification != null ? specification.toPredicate(user, query, cb) : null;
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(direction.isAscending()
+                ? List.of(cb.asc(createdAt), cb.asc(id))
+                : List.of(cb.desc(createdAt), cb.desc(id)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,209 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import za.co.eyetv.usersecurity.config.RateLimitProperties;
+import za.co.eyetv.usersecurity.dto.ErrorDTO;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits {@code POST /api/auth/**} per client IP and per target account before any password is hashed.
+ *
+ * The account is the {@code email} field of the JSON body, so credential stuffing spread over many IPs is
+ * still capped per account, and one IP cannot cycle through accounts faster than its own limit. Rejected
+ * requests get 429 with {@code Retry-After} in seconds. The body is always read, whether or not a
+ * {@code Content-Length} is sent, so a chunked request cannot skip the account limit; a body too large to
+ * inspect is rejected with 413.
+ */
+@Component
+@Slf4j
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PATH = "/api/auth/";
+    // Login and registration bodies are tiny; anything larger is rejected rather than let past the account limit
+    static final int MAX_INSPECTED_BODY_BYTES = 16 * 1024;
+
+    private final boolean enabled;
+    private final TokenBucketLimiter ipLimiter;
+    private final TokenBucketLimiter accountLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter ipRejections;
+    private final Counter accountRejections;
+
+    public AuthRateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.ipLimiter = new TokenBucketLimiter(properties.getIp().getRequestsPerMinute(), properties.getIp().getBurst(),
+                properties.getMaximumBuckets(), properties.getIdleEvictionMs());
+        this.accountLimiter = new TokenBucketLimiter(properties.getAccount().getRequestsPerMinute(),
+                properties.getAccount().getBurst(), properties.getMaximumBuckets(), properties.getIdleEvictionMs());
+        this.objectMapper = objectMapper;
+        this.ipRejections = Counter.builder("auth.ratelimit.rejected").tag("scope", "ip")
+                .description("Auth requests rejected by the rate limiter")
+                .register(meterRegistry);
+        this.accountRejections = Counter.builder("auth.ratelimit.rejected").tag("scope", "account")
+                .description("Auth requests rejected by the rate limiter")
+                .register(meterRegistry);
+        Gauge.builder("auth.ratelimit.buckets", this, f -> f.ipLimiter.size() + f.accountLimiter.size())
+                .description("Rate limit buckets held in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + AUTH_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long now = System.nanoTime();
+        long ipWait = ipLimiter.tryAcquire(request.getRemoteAddr(), now);
+        if (ipWait > 0) {
+            ipRejections.increment();
+            rejectTooManyRequests(request, response, ipWait);
+            return;
+        }
+
+        // Without a Content-Length (chunked) the body is read anyway; one byte past the limit tells it is too large
+        byte[] body = request.getContentLengthLong() > MAX_INSPECTED_BODY_BYTES
+                ? null
+                : request.getInputStream().readNBytes(MAX_INSPECTED_BODY_BYTES + 1);
+        if (body == null || body.length > MAX_INSPECTED_BODY_BYTES) {
+            reject(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large");
+            return;
+        }
+        String account = accountOf(body);
+        if (account != null) {
+            long accountWait = accountLimiter.tryAcquire(account, now);
+            if (accountWait > 0) {
+                accountRejections.increment();
+                rejectTooManyRequests(request, response, accountWait);
+                return;
+            }
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private String accountOf(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the endpoint itself
+            return null;
+        }
+    }
+
+    private void rejectTooManyRequests(HttpServletRequest request, HttpServletResponse response, long waitNanos)
+            throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.warn("Rate limited {} {} from {}, retry after {} s",
+                request.getMethod(), request.getRequestURI(), request.getRemoteAddr(), retryAfterSeconds);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        reject(request, response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please retry later");
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        ErrorDTO error = ErrorDTO.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path("uri=" + request.getRequestURI())
+                .build();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    /**
+     * Replays a body that has already been read so the controller can bind it.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory, so it is available and complete at once
+                    try {
+                        if (input.available() > 0) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
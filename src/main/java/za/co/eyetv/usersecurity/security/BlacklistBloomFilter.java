@@ -0,0 +1,169 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.io.BaseEncoding;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-process negative cache in front of {@link BlacklistedTokenRepository}.
+ *
+ * Almost no presented token is revoked, so a Bloom filter answers "definitely not blacklisted"
+ * without a database round trip; only possible hits are confirmed against the table.
+ * Until the first load from {@code blacklisted_tokens} completes every lookup is treated as a
+ * possible hit, so revoked tokens are never accepted while the filter is warming up.
+ * Tokens blacklisted on other nodes arrive through the {@link RevocationEventBus}.
+ */
+@Component
+@Slf4j
+public class BlacklistBloomFilter {
+
+    private final BlacklistedTokenRepository blacklistedTokenRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JwtProperties.Blacklist properties;
+
+    private volatile BloomFilter<byte[]> current;
+    // Non-null while a rebuild is loading rows, so concurrent inserts reach the new filter as well
+    private volatile BloomFilter<byte[]> rebuilding;
+    private volatile long expectedInsertions;
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public BlacklistBloomFilter(BlacklistedTokenRepository blacklistedTokenRepository,
+                                PlatformTransactionManager transactionManager,
+                                JwtProperties jwtProperties,
+                                RevocationEventBus revocationEventBus,
+                                MeterRegistry meterRegistry) {
+        this.blacklistedTokenRepository = blacklistedTokenRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = jwtProperties.getBlacklist();
+
+        Gauge.builder("jwt.blacklist.bloom.expected.fpp", this, BlacklistBloomFilter::getExpectedFalsePositiveRate)
+                .description("Current false-positive probability of the blacklist Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("jwt.blacklist.bloom.size", this, BlacklistBloomFilter::getSizeInBytes)
+                .description("Memory used by the blacklist Bloom filter bit array")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("jwt.blacklist.bloom.elements", this, BlacklistBloomFilter::getApproximateElementCount)
+                .description("Approximate number of tokens in the blacklist Bloom filter")
+                .register(meterRegistry);
+
+        revocationEventBus.subscribe(this::onRevocationEvent);
+    }
+
+    private void onRevocationEvent(RevocationEvent event) {
+        switch (event.type()) {
+            case TOKEN_BLACKLISTED -> put(BaseEncoding.base16().lowerCase().decode(event.tokenDigest()));
+            case RESYNC -> rebuild();
+            default -> {
+                // Not relevant to the blacklist
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Returns {@code false} only if the token digest is definitely not blacklisted.
+     */
+    public boolean mightContain(byte[] tokenDigest) {
+        BloomFilter<byte[]> filter = current;
+        return filter == null || filter.mightContain(tokenDigest);
+    }
+
+    /**
+     * Records a blacklisted token digest. A rebuild that runs before the row is committed can miss it;
+     * {@link BlacklistWriteBehindQueue#isRecentlyRevoked} covers that window.
+     */
+    public void put(byte[] tokenDigest) {
+        // Read rebuilding before current so a swap in between cannot lose the token
+        BloomFilter<byte[]> next = rebuilding;
+        if (next != null) {
+            next.put(tokenDigest);
+        }
+        BloomFilter<byte[]> filter = current;
+        if (filter != null) {
+            filter.put(tokenDigest);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the non-expired rows of {@code blacklisted_tokens}, dropping
+     * expired tokens so the filter does not saturate over time.
+     */
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            Instant now = Instant.now();
+            long live = blacklistedTokenRepository.countByExpiryDateAfter(now);
+            long insertions = Math.max(properties.getBloomExpectedInsertions(), live * 2);
+
+            BloomFilter<byte[]> next = BloomFilter.create(
+                    Funnels.byteArrayFunnel(), insertions, properties.getBloomFalsePositiveRate());
+            rebuilding = next;
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<byte[]> digests = blacklistedTokenRepository.streamTokenDigestsExpiringAfter(now)) {
+                    digests.forEach(next::put);
+                }
+            });
+            expectedInsertions = insertions;
+            current = next;
+            rebuilds.incrementAndGet();
+            log.info("Rebuilt blacklist Bloom filter with {} live tokens ({} bytes, expected fpp {}) in {} ms",
+                    live, getSizeInBytes(), getExpectedFalsePositiveRate(), System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("Failed to rebuild blacklist Bloom filter, keeping previous filter: {}", e.getMessage(), e);
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    public boolean isLoaded() {
+        return current != null;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        BloomFilter<byte[]> filter = current;
+        return filter != null ? filter.expectedFpp() : 1.0;
+    }
+
+    public long getApproximateElementCount() {
+        BloomFilter<byte[]> filter = current;
+        return filter != null ? filter.approximateElementCount() : 0;
+    }
+
+    /**
+     * Size of the bit array, using the same optimal-bits formula as Guava.
+     */
+    public long getSizeInBytes() {
+        if (current == null) {
+            return 0;
+        }
+        double p = properties.getBloomFalsePositiveRate();
+        long bits = (long) (-expectedInsertions * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return (bits + 7) / 8;
+    }
+
+    public long getRebuildCount() {
+        return rebuilds.get();
+    }
+}
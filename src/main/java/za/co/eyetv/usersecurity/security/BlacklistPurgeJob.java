@@ -0,0 +1,125 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes expired rows from {@code blacklisted_tokens} in small batches.
+ *
+ * Each batch is its own short transaction, so no run holds locks or produces WAL in one large burst
+ * and blacklist lookups keep being served in between. A run stops when the table is clean or its time
+ * budget is spent; whatever is left over is picked up by the next run.
+ * Whole days of expired tokens are dropped as partitions by
+ * {@link za.co.eyetv.usersecurity.config.BlacklistPartitionManager}, so in practice this only sweeps
+ * the default partition and the current day.
+ */
+@Component
+@Slf4j
+public class BlacklistPurgeJob {
+
+    private final BlacklistedTokenRepository blacklistedTokenRepository;
+    private final BlacklistBloomFilter blacklistBloomFilter;
+    private final JwtProperties.Blacklist properties;
+
+    private final Counter purgedRows;
+    private final Timer batchTimer;
+    private final AtomicLong backlog = new AtomicLong();
+
+    public BlacklistPurgeJob(BlacklistedTokenRepository blacklistedTokenRepository,
+                             BlacklistBloomFilter blacklistBloomFilter,
+                             JwtProperties jwtProperties,
+                             MeterRegistry meterRegistry) {
+        this.blacklistedTokenRepository = blacklistedTokenRepository;
+        this.blacklistBloomFilter = blacklistBloomFilter;
+        this.properties = jwtProperties.getBlacklist();
+
+        this.purgedRows = Counter.builder("jwt.blacklist.purge.rows")
+                .description("Expired blacklisted tokens deleted by the purge job")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("jwt.blacklist.purge.batch")
+                .description("Time taken by a single purge batch")
+                .register(meterRegistry);
+        Gauge.builder("jwt.blacklist.purge.backlog", backlog, AtomicLong::get)
+                .description("Expired blacklisted tokens still waiting to be purged after the last run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.blacklist.purge-interval-ms:300000}",
+            initialDelayString = "${jwt.blacklist.purge-interval-ms:300000}")
+    public void purgeExpiredTokens() {
+        try {
+            purge(Instant.now());
+        } catch (Exception e) {
+            log.error("Error during purge of expired blacklisted tokens: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deletes tokens that expired before {@code now} until none are left or the time budget is spent.
+     *
+     * @return the number of rows deleted
+     */
+    public long purge(Instant now) {
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + properties.getPurgeTimeBudgetMs();
+        int batchSize = properties.getPurgeBatchSize();
+        long total = 0;
+        int deleted;
+
+        do {
+            deleted = batchTimer.record(() -> blacklistedTokenRepository.deleteExpiredTokensBatch(now, batchSize));
+            total += deleted;
+            purgedRows.increment(deleted);
+            if (deleted < batchSize || System.currentTimeMillis() >= deadline) {
+                break;
+            }
+        } while (pause());
+
+        long remaining = deleted < batchSize ? 0 : blacklistedTokenRepository.countByExpiryDateBefore(now);
+        backlog.set(remaining);
+        if (total > 0) {
+            log.info("Purged {} expired blacklisted tokens in {} ms, {} remaining",
+                    total, System.currentTimeMillis() - startedAt, remaining);
+        }
+        if (shouldRebuildBloomFilter(total)) {
+            blacklistBloomFilter.rebuild();
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        long pauseMs = properties.getPurgePauseMs();
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Purged tokens stay set in the Bloom filter, so it is only rebuilt once a meaningful share of its
+     * elements is gone or its false-positive rate has drifted above the configured target.
+     */
+    private boolean shouldRebuildBloomFilter(long purged) {
+        if (purged == 0 || !blacklistBloomFilter.isLoaded()) {
+            return false;
+        }
+        return purged * 10 >= blacklistBloomFilter.getApproximateElementCount()
+                || blacklistBloomFilter.getExpectedFalsePositiveRate() > properties.getBloomFalsePositiveRate();
+    }
+}
@@ -0,0 +1,247 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.model.BlacklistedToken;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for {@code blacklisted_tokens} inserts.
+ *
+ * A revoked token is visible in memory as soon as it is enqueued: on this node through the pending set,
+ * and on every other node through the {@link RevocationEventBus}, which each node remembers until the token
+ * expires. A row lost with a crashed node is therefore still enforced by the nodes that heard the event.
+ * A single writer thread collects up to
+ * {@code jwt.blacklist.flush-size} rows, or whatever arrived within {@code jwt.blacklist.flush-interval-ms},
+ * and inserts them as one JDBC batch, so a burst of logouts needs a handful of connections instead of one each.
+ * Failed batches are retried rather than dropped, and the queue is drained before the application shuts down.
+ * When the queue is full, the caller writes its own row so memory stays bounded.
+ */
+@Component
+@Slf4j
+public class BlacklistWriteBehindQueue {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO blacklisted_tokens (token_digest, token_type, user_email, blacklisted_at, expiry_date) " +
+            "VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JwtProperties.Blacklist properties;
+    private final BlockingQueue<BlacklistedToken> queue;
+    // Enqueued but not yet committed, keyed by hex digest
+    private final Map<String, BlacklistedToken> pending = new ConcurrentHashMap<>();
+    // Revocations announced on the bus, which may never reach the table, keyed by hex digest until token expiry
+    private final Map<String, Instant> recentlyRevoked = new ConcurrentHashMap<>();
+    private final Timer flushTimer;
+    // Owned by the writer thread; read by stop() only after that thread has terminated
+    private final List<BlacklistedToken> batch = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile long lastPurgeNanos = System.nanoTime();
+    private Thread writerThread;
+
+    public BlacklistWriteBehindQueue(JdbcTemplate jdbcTemplate,
+                                     JwtProperties jwtProperties,
+                                     RevocationEventBus revocationEventBus,
+                                     MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = jwtProperties.getBlacklist();
+        this.queue = new LinkedBlockingQueue<>(properties.getWriteBehindCapacity());
+        this.flushTimer = Timer.builder("jwt.blacklist.flush")
+                .description("Time taken to insert one batch of blacklisted tokens")
+                .register(meterRegistry);
+        Gauge.builder("jwt.blacklist.pending", pending, Map::size)
+                .description("Blacklisted tokens waiting to be written to the database")
+                .register(meterRegistry);
+
+        revocationEventBus.subscribe(this::onRevocationEvent);
+    }
+
+    private void onRevocationEvent(RevocationEvent event) {
+        if (event.type() == RevocationEvent.Type.TOKEN_BLACKLISTED && event.tokenDigest() != null) {
+            // Events from nodes that predate the expiry field are kept for the fallback TTL
+            Instant expiresAt = event.expiresAt() != null ? event.expiresAt()
+                    : Instant.now().plusMillis(properties.getRecentlyRevokedTtlMs());
+            recentlyRevoked.put(event.tokenDigest(), expiresAt);
+            purgeExpired();
+        }
+    }
+
+    /**
+     * Forgets revocations of tokens that have expired anyway, at most once a minute.
+     */
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        if (now - lastPurgeNanos < TimeUnit.MINUTES.toNanos(1)) {
+            return;
+        }
+        lastPurgeNanos = now;
+        Instant cutoff = Instant.now();
+        recentlyRevoked.values().removeIf(expiresAt -> expiresAt.isBefore(cutoff));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isWriteBehindEnabled()) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::writeLoop, "blacklist-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer and flushes everything still queued before the datasource is closed.
+     *
+     * The writer gives up retrying once it sees the stop, so this waits for it to terminate before taking over
+     * its batch; a timed join could read the batch while the writer is still adding to or writing it.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.interrupt();
+        writerThread.join();
+        List<BlacklistedToken> remaining = new ArrayList<>(batch);
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Flushing {} queued blacklisted tokens before shutdown", remaining.size());
+            if (!write(remaining)) {
+                log.error("Could not flush {} blacklisted tokens before shutdown", remaining.size());
+            }
+        }
+    }
+
+    /**
+     * Records a revoked token. It is treated as blacklisted immediately and written in the next batch.
+     */
+    public void enqueue(BlacklistedToken blacklistedToken) {
+        String digest = TokenDigests.toHex(blacklistedToken.getTokenDigest());
+        if (pending.putIfAbsent(digest, blacklistedToken) != null) {
+            return;
+        }
+        if (running && queue.offer(blacklistedToken)) {
+            return;
+        }
+        if (!write(List.of(blacklistedToken))) {
+            pending.remove(digest);
+            throw new IllegalStateException("Could not write blacklisted token");
+        }
+    }
+
+    /**
+     * Whether the token was revoked recently enough that its row may not be in the table yet.
+     */
+    public boolean isRecentlyRevoked(byte[] tokenDigest) {
+        String digest = TokenDigests.toHex(tokenDigest);
+        if (pending.containsKey(digest)) {
+            return true;
+        }
+        Instant expiresAt = recentlyRevoked.get(digest);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                BlacklistedToken first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+                while (batch.size() < properties.getFlushSize()) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    BlacklistedToken next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, properties.getFlushSize() - batch.size());
+                }
+                writeWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // stop() writes what is left, including a batch that was still being collected
+                return;
+            }
+        }
+    }
+
+    private void writeWithRetry(List<BlacklistedToken> batch) throws InterruptedException {
+        while (!write(batch)) {
+            if (!running) {
+                throw new InterruptedException();
+            }
+            Thread.sleep(properties.getFlushRetryDelayMs());
+        }
+    }
+
+    /**
+     * Inserts the rows as one batch; rows that already exist are skipped.
+     *
+     * @return whether the batch was committed
+     */
+    boolean write(List<BlacklistedToken> batch) {
+        Timer.Sample sample = Timer.start();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    BlacklistedToken token = batch.get(i);
+                    ps.setBytes(1, token.getTokenDigest());
+                    ps.setString(2, token.getTokenType().name());
+                    ps.setString(3, token.getUserEmail());
+                    ps.setTimestamp(4, Timestamp.from(token.getBlacklistedAt() != null ? token.getBlacklistedAt() : Instant.now()));
+                    ps.setTimestamp(5, Timestamp.from(token.getExpiryDate()));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            for (BlacklistedToken token : batch) {
+                pending.remove(TokenDigests.toHex(token.getTokenDigest()));
+            }
+            log.debug("Wrote {} blacklisted tokens", batch.size());
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to write {} blacklisted tokens, will retry: {}", batch.size(), e.getMessage(), e);
+            return false;
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.exception.PasswordHashingUnavailableException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool for hashing passwords in bulk: admin bulk registration and user imports.
+ *
+ * Kept apart from the {@link PasswordHashingExecutor} so a large batch never queues ahead of interactive
+ * logins. It has fewer threads than cores by default, leaving CPU for the login pool, and a bounded queue;
+ * when the queue is full new work is rejected with {@link PasswordHashingUnavailableException}.
+ */
+@Component
+@Slf4j
+public class BulkHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Counter rejections;
+
+    public BulkHashingExecutor(UserProperties userProperties, MeterRegistry meterRegistry) {
+        UserProperties.Bulk properties = userProperties.getBulk();
+        int threads = properties.getHashingThreads() > 0
+                ? properties.getHashingThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getHashingQueueCapacity()),
+                threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejections = Counter.builder("users.bulk.hashing.rejected")
+                .description("Bulk hashing work rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("users.bulk.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Bulk hashing work waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the task on the bulk pool.
+     *
+     * @throws PasswordHashingUnavailableException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Bulk hashing queue is full ({} waiting), rejecting work", executor.getQueue().size());
+            throw new PasswordHashingUnavailableException("Bulk registration is busy, please retry shortly");
+        }
+    }
+
+    /**
+     * Number of threads, i.e. how many slices bulk work should be split into.
+     */
+    public int getThreads() {
+        return executor.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bulk-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
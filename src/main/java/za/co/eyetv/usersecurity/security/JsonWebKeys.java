@@ -0,0 +1,76 @@
+package za.co.eyetv.usersecurity.security;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts verification keys to JSON Web Keys (RFC 7517/7518) for the JWKS endpoint.
+ */
+public final class JsonWebKeys {
+
+    private JsonWebKeys() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @param algorithm the {@code alg} member, or {@code null} to leave it out when the algorithm is not known
+     */
+    public static Map<String, Object> toJwk(String keyId, String algorithm, PublicKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (key instanceof ECPublicKey ec) {
+            int fieldBits = ec.getParams().getCurve().getField().getFieldSize();
+            int length = (fieldBits + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", curveName(fieldBits));
+            jwk.put("x", base64Url(unsigned(ec.getW().getAffineX(), length)));
+            jwk.put("y", base64Url(unsigned(ec.getW().getAffineY(), length)));
+        } else if (key instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(unsigned(rsa.getModulus(), 0)));
+            jwk.put("e", base64Url(unsigned(rsa.getPublicExponent(), 0)));
+        } else {
+            throw new IllegalArgumentException("Unsupported public key type: " + key.getAlgorithm());
+        }
+        jwk.put("use", "sig");
+        if (algorithm != null) {
+            jwk.put("alg", algorithm);
+        }
+        jwk.put("kid", keyId);
+        return jwk;
+    }
+
+    private static String curveName(int fieldBits) {
+        return switch (fieldBits) {
+            case 256 -> "P-256";
+            case 384 -> "P-384";
+            case 521 -> "P-521";
+            default -> throw new IllegalArgumentException("Unsupported EC curve with a " + fieldBits + "-bit field");
+        };
+    }
+
+    /**
+     * Big-endian bytes without the sign byte, left-padded to {@code length} when it is positive.
+     */
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length > bytes.length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            return padded;
+        }
+        return bytes;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
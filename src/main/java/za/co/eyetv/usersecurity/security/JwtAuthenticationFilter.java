@@ -1,5 +1,6 @@
 package za.co.eyetv.usersecurity.security;
 
+import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,7 +14,10 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import za.co.eyetv.usersecurity.config.JwtProperties;
 import za.co.eyetv.usersecurity.exception.TokenValidationException;
+import za.co.eyetv.usersecurity.model.UserPrincipal;
+import za.co.eyetv.usersecurity.service.ActivityTracker;
 import za.co.eyetv.usersecurity.service.CustomUserDetailsService;
 
 import java.io.IOException;
@@ -24,11 +28,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService customUserDetailsService;
+    private final ActivityTracker activityTracker;
+    private final boolean statelessAuthentication;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtService jwtService, CustomUserDetailsService customUserDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   CustomUserDetailsService customUserDetailsService,
+                                   ActivityTracker activityTracker,
+                                   JwtProperties jwtProperties) {
         this.jwtService = jwtService;
         this.customUserDetailsService = customUserDetailsService;
+        this.activityTracker = activityTracker;
+        this.statelessAuthentication = jwtProperties.isStatelessAuthentication();
     }
 
     @Override
@@ -38,7 +49,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
+        final VerifiedToken verifiedToken;
         final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -46,18 +57,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        jwt = authHeader.substring(7);
+        // Parse and verify the token once; every check below works on the verified claims
         try {
-            userEmail = jwtService.extractUsername(jwt);
-        } catch (TokenValidationException e) {
+            verifiedToken = jwtService.verifyToken(authHeader.substring(7));
+        } catch (TokenValidationException | ExpiredJwtException e) {
             log.warn("Invalid JWT token: {}", e.getMessage());
             filterChain.doFilter(request, response);
             return;
         }
+        userEmail = verifiedToken.getSubject();
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (userEmail != null && statelessAuthentication
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Claims-only mode: no user lookup, and no entity or password hash in the context
+            if (jwtService.isTokenValid(verifiedToken)) {
+                JwtPrincipal principal = JwtPrincipal.from(verifiedToken);
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                activityTracker.record(principal.id());
+            }
+        } else if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = customUserDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (jwtService.isTokenValid(verifiedToken, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -68,6 +91,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         new WebAuthenticationDetailsSource().buildDetails(request)
                 );
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                activityTracker.record(userDetails instanceof UserPrincipal userPrincipal
+                        ? userPrincipal.getUser().getId()
+                        : verifiedToken.getUserId());
             }
         }
         filterChain.doFilter(request, response);
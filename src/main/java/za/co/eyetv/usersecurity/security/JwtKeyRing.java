@@ -0,0 +1,210 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.google.common.hash.Hashing;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Signing and verification keys for JWTs, built once at startup.
+ *
+ * New tokens are signed with the active key and carry its id in the {@code kid} header.
+ * Verification selects the key by {@code kid}, so tokens signed with a retired key
+ * ({@code jwt.previous-keys}, {@code jwt.signing.previous-public-keys}) stay valid until they expire.
+ * Tokens without a {@code kid} predate key ids and are verified with {@code jwt.secret}.
+ *
+ * With an asymmetric {@code jwt.signing.algorithm} the active key is a private key, and its public key
+ * together with the retired ones is published through {@link #getPublishedKeys()}. HMAC secrets are
+ * never published; they are only accepted for verification while {@code jwt.signing.accept-hmac} is set.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    /**
+     * A public verification key as published in the JWKS; the algorithm is {@code null} when it is not known.
+     */
+    public record PublishedKey(String keyId, SignatureAlgorithm algorithm, PublicKey key) {
+    }
+
+    @Getter
+    private final String activeKeyId;
+    @Getter
+    private final Key activeSigningKey;
+    @Getter
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    private final Map<String, Key> verificationKeys;
+    // Verifies tokens without a kid; null once HMAC tokens are no longer accepted
+    private final Key legacyKey;
+
+    /**
+     * Active public key first, then the retired ones; empty when signing with HS256.
+     */
+    @Getter
+    private final List<PublishedKey> publishedKeys;
+
+    /**
+     * Thread-safe parser shared by all requests; the key is resolved per token from the {@code kid}.
+     */
+    @Getter
+    private final JwtParser parser;
+
+    public JwtKeyRing(JwtProperties jwtProperties) {
+        JwtProperties.Signing signing = jwtProperties.getSigning();
+        this.signatureAlgorithm = SignatureAlgorithm.forName(signing.getAlgorithm().trim().toUpperCase(Locale.ROOT));
+        if (signatureAlgorithm == SignatureAlgorithm.NONE) {
+            throw new IllegalStateException("Unsigned JWTs are not supported");
+        }
+        boolean hmac = signatureAlgorithm.isHmac();
+
+        String hmacKeyId = resolveKeyId(jwtProperties.getKeyId(), jwtProperties.getSecret());
+        Key secretKey = hmacKey(jwtProperties.getSecret());
+        Map<String, Key> keys = new LinkedHashMap<>();
+        List<PublishedKey> published = new ArrayList<>();
+
+        if (hmac) {
+            this.activeKeyId = hmacKeyId;
+            this.activeSigningKey = secretKey;
+        } else {
+            String keyAlgorithm = signatureAlgorithm.isEllipticCurve() ? "EC" : "RSA";
+            PublicKey publicKey = PemKeys.publicKey(signing.getPublicKey(), keyAlgorithm);
+            this.activeKeyId = resolveKeyId(signing.getKeyId(), publicKey);
+            this.activeSigningKey = PemKeys.privateKey(signing.getPrivateKey(), keyAlgorithm);
+            checkKeyPair(publicKey);
+            keys.put(activeKeyId, publicKey);
+            published.add(new PublishedKey(activeKeyId, signatureAlgorithm, publicKey));
+
+            signing.getPreviousPublicKeys().forEach((kid, pem) -> {
+                PublicKey previous = PemKeys.publicKey(pem);
+                if (keys.putIfAbsent(kid, previous) != null) {
+                    log.warn("Ignoring previous JWT public key with duplicate key id: {}", kid);
+                } else {
+                    published.add(new PublishedKey(kid,
+                            algorithmOf(kid, previous, signing.getPreviousKeyAlgorithms().get(kid)), previous));
+                }
+            });
+        }
+
+        if (hmac || signing.isAcceptHmac()) {
+            this.legacyKey = secretKey;
+            if (keys.putIfAbsent(hmacKeyId, secretKey) != null) {
+                log.warn("Ignoring JWT secret with a key id already used by a public key: {}", hmacKeyId);
+            }
+            jwtProperties.getPreviousKeys().forEach((kid, secret) -> {
+                if (keys.putIfAbsent(kid, hmacKey(secret)) != null) {
+                    log.warn("Ignoring previous JWT key with duplicate key id: {}", kid);
+                }
+            });
+        } else {
+            this.legacyKey = null;
+        }
+        this.verificationKeys = Map.copyOf(keys);
+        this.publishedKeys = Collections.unmodifiableList(published);
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKey(header.getKeyId());
+                    }
+                })
+                .build();
+
+        log.info("JWT key ring initialised with {} active key id '{}', {} verification key(s) and {} published key(s)",
+                signatureAlgorithm.getValue(), activeKeyId, verificationKeys.size(), publishedKeys.size());
+    }
+
+    private Key verificationKey(String kid) {
+        if (kid == null) {
+            if (legacyKey == null) {
+                throw new SignatureException("JWT without a key id");
+            }
+            return legacyKey;
+        }
+        Key key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new SignatureException("Unknown JWT signing key id: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Signs and verifies a throwaway token, so a public key that does not belong to the private key
+     * fails startup instead of every token later.
+     */
+    private void checkKeyPair(PublicKey publicKey) {
+        try {
+            String probe = Jwts.builder().setSubject("key-check").signWith(activeSigningKey, signatureAlgorithm).compact();
+            Jwts.parserBuilder().setSigningKey(publicKey).build().parseClaimsJws(probe);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new IllegalStateException("jwt.signing.private-key and jwt.signing.public-key do not form a usable "
+                    + signatureAlgorithm.getValue() + " key pair: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The configured algorithm of a retired key, else the one its EC curve implies, else {@code null}:
+     * an RSA key may have signed with any RS or PS algorithm, and a wrong {@code alg} makes verifiers reject it.
+     */
+    private static SignatureAlgorithm algorithmOf(String kid, PublicKey key, String configured) {
+        if (configured != null && !configured.isBlank()) {
+            SignatureAlgorithm algorithm = SignatureAlgorithm.forName(configured.trim().toUpperCase(Locale.ROOT));
+            boolean matches = key instanceof ECPublicKey ? algorithm.isEllipticCurve() : algorithm.isRsa();
+            if (!matches) {
+                throw new IllegalStateException("jwt.signing.previous-key-algorithms." + kid + " is "
+                        + algorithm.getValue() + ", which cannot be used with its " + key.getAlgorithm() + " key");
+            }
+            return algorithm;
+        }
+        if (key instanceof ECPublicKey ec) {
+            return switch (ec.getParams().getCurve().getField().getFieldSize()) {
+                case 256 -> SignatureAlgorithm.ES256;
+                case 384 -> SignatureAlgorithm.ES384;
+                default -> SignatureAlgorithm.ES512;
+            };
+        }
+        return null;
+    }
+
+    private static Key hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String resolveKeyId(String configuredKeyId, String secret) {
+        if (configuredKeyId != null && !configuredKeyId.isBlank()) {
+            return configuredKeyId;
+        }
+        // Stable across nodes sharing the same secret, without revealing it
+        return Hashing.sha256().hashString(secret, StandardCharsets.UTF_8).toString().substring(0, 8);
+    }
+
+    private static String resolveKeyId(String configuredKeyId, PublicKey publicKey) {
+        if (configuredKeyId != null && !configuredKeyId.isBlank()) {
+            return configuredKeyId;
+        }
+        // Stable across nodes sharing the same key pair
+        return Hashing.sha256().hashBytes(publicKey.getEncoded()).toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,33 @@
+package za.co.eyetv.usersecurity.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Lean, immutable principal built from verified JWT claims in stateless authentication mode.
+ * Unlike {@link za.co.eyetv.usersecurity.model.UserPrincipal} it holds no entity and no password hash.
+ *
+ * @param id    database id of the user ({@code uid} claim), {@code null} for older tokens
+ * @param email the token subject
+ * @param roles granted roles, e.g. {@code ROLE_ADMIN}
+ */
+public record JwtPrincipal(Long id, String email, List<String> roles) implements AuthenticatedPrincipal {
+
+    public static JwtPrincipal from(VerifiedToken token) {
+        return new JwtPrincipal(token.getUserId(), token.getSubject(), List.copyOf(token.getRoles()));
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return roles.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
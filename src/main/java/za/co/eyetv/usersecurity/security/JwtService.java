@@ -1,34 +1,68 @@
 package za.co.eyetv.usersecurity.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
 import za.co.eyetv.usersecurity.exception.TokenValidationException;
 import za.co.eyetv.usersecurity.model.BlacklistedToken;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.UserPrincipal;
 import za.co.eyetv.usersecurity.model.enums.TokenType;
 import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
 
-import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class JwtService {
 
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+
     private final JwtProperties jwtProperties;
+    private final JwtKeyRing keyRing;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final BlacklistedTokenRepository blacklistedTokenRepository;
+    private final BlacklistBloomFilter blacklistBloomFilter;
+    private final BlacklistWriteBehindQueue blacklistWriteBehindQueue;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final RevocationEventBus revocationEventBus;
+    private final Counter verifications;
+
+    public JwtService(JwtProperties jwtProperties,
+                      JwtKeyRing keyRing,
+                      VerifiedTokenCache verifiedTokenCache,
+                      BlacklistedTokenRepository blacklistedTokenRepository,
+                      BlacklistBloomFilter blacklistBloomFilter,
+                      BlacklistWriteBehindQueue blacklistWriteBehindQueue,
+                      TokenVersionRegistry tokenVersionRegistry,
+                      RevocationEventBus revocationEventBus,
+                      MeterRegistry meterRegistry) {
+        this.jwtProperties = jwtProperties;
+        this.keyRing = keyRing;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.blacklistedTokenRepository = blacklistedTokenRepository;
+        this.blacklistBloomFilter = blacklistBloomFilter;
+        this.blacklistWriteBehindQueue = blacklistWriteBehindQueue;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.revocationEventBus = revocationEventBus;
+        this.verifications = Counter.builder("jwt.verifications")
+                .description("Number of JWS signature verifications and claim decodes")
+                .register(meterRegistry);
+    }
 
     // --- Token Utility ---
 
@@ -41,10 +75,6 @@ public class JwtService {
         return token;
     }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-    }
-
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -55,8 +85,7 @@ public class JwtService {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verifyToken(token).getClaims());
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -64,32 +93,137 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtProperties.getExpirationMs());
+        return buildToken(extraClaims, userDetails, TokenType.ACCESS, jwtProperties.getExpirationMs());
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(new HashMap<>(), userDetails, jwtProperties.getRefreshExpirationMs());
+        return buildToken(new HashMap<>(), userDetails, TokenType.REFRESH, jwtProperties.getRefreshExpirationMs());
     }
 
-    private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
+    private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails, TokenType type, long expiration) {
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(TOKEN_TYPE_CLAIM, type.name());
+        if (type == TokenType.ACCESS) {
+            // Enough identity for stateless authentication without a user lookup; refresh tokens carry none
+            claims.putIfAbsent(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .toList());
+        }
+        User user = userOf(userDetails);
+        if (user != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(TokenVersionRegistry.VERSION_CLAIM, user.getTokenVersion());
+        }
         return Jwts
                 .builder()
-                .setClaims(extraClaims)
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(keyRing.getActiveSigningKey(), keyRing.getSignatureAlgorithm())
                 .compact();
     }
 
+    private static User userOf(UserDetails userDetails) {
+        if (userDetails instanceof UserPrincipal userPrincipal) {
+            return userPrincipal.getUser();
+        }
+        if (userDetails instanceof User user) {
+            return user;
+        }
+        return null;
+    }
+
+    // --- Verification ---
+
+    /**
+     * Verifies the signature of the token and decodes its claims exactly once.
+     * The returned {@link VerifiedToken} should be passed to every further check
+     * instead of re-parsing the compact string. Tokens seen before are served from
+     * the {@link VerifiedTokenCache} without verifying them again.
+     *
+     * @throws ExpiredJwtException      if the token is correctly signed but expired
+     * @throws TokenValidationException if the token is malformed or the signature is invalid
+     */
+    public VerifiedToken verifyToken(String token) {
+        String normalized = normalizeToken(token);
+        VerifiedToken cached = verifiedTokenCache.get(normalized);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verifiedToken = new VerifiedToken(normalized, extractAllClaims(normalized));
+        verifiedTokenCache.put(verifiedToken);
+        return verifiedToken;
+    }
+
     // --- Validation ---
 
+    /**
+     * The {@code typ} claim. Tokens issued before it was added are told apart by lifetime:
+     * only refresh tokens outlive an access token.
+     */
+    public TokenType tokenType(VerifiedToken token) {
+        TokenType type = token.getTokenType();
+        if (type != null) {
+            return type;
+        }
+        Instant issuedAt = token.getIssuedAt();
+        Instant expiration = token.getExpiration();
+        if (issuedAt == null || expiration == null) {
+            return TokenType.ACCESS;
+        }
+        return expiration.toEpochMilli() - issuedAt.toEpochMilli() > jwtProperties.getExpirationMs()
+                ? TokenType.REFRESH
+                : TokenType.ACCESS;
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return isTokenValid(token, userDetails, TokenType.ACCESS);
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails, TokenType type) {
+        try {
+            final String username = token.getSubject();
+            return (username != null && username.equals(userDetails.getUsername()))
+                    && isTokenValid(token, type);
+        } catch (Exception e) {
+            log.error("Token validation error during user check: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Valid as an access token; refresh tokens are rejected.
+     */
+    public boolean isTokenValid(VerifiedToken token) {
+        return isTokenValid(token, TokenType.ACCESS);
+    }
+
+    public boolean isTokenValid(VerifiedToken token, TokenType type) {
+        if (tokenType(token) != type) {
+            log.warn("Expected {} token but got {} token for subject: {}", type, tokenType(token), token.getSubject());
+            return false;
+        }
+        if (token.isExpired()) {
+            log.warn("Token is expired for subject: {}", token.getSubject());
+            return false;
+        }
+        if (!tokenVersionRegistry.isCurrent(token)) {
+            log.warn("Token has been revoked by a newer token version for subject: {}", token.getSubject());
+            return false;
+        }
+        if (isTokenBlacklisted(token, type)) {
+            log.warn("{} token is blacklisted for subject: {}", type, token.getSubject());
+            return false;
+        }
+        return true;
+    }
+
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()))
-                    && !isTokenExpired(token)
-                    && !isTokenBlacklisted(token, TokenType.ACCESS);
+            return isTokenValid(verifyToken(token), userDetails);
         } catch (Exception e) {
             log.error("Token validation error during user check: {}", e.getMessage());
             return false;
@@ -98,63 +232,23 @@ public class JwtService {
 
     public boolean isTokenValid(String token) {
         try {
-            // Prefer the access check here -- adjust as needed
-            if (isTokenBlacklisted(token, TokenType.ACCESS)) {
-                log.warn("Access token is blacklisted: {}", token);
-                return false;
-            }
-            if (isTokenExpired(token)) {
-                log.warn("Token is expired: {}", token);
-                return false;
-            }
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return isTokenValid(verifyToken(token));
         } catch (ExpiredJwtException e) {
             log.warn("JWT token is expired (caught during parsing): {}", e.getMessage());
             return false;
-        } catch (SignatureException e) {
-            log.error("Invalid JWT signature: {}", e.getMessage());
-            throw new TokenValidationException("Invalid JWT signature");
-        } catch (MalformedJwtException e) {
+        } catch (TokenValidationException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
-            throw new TokenValidationException("Invalid JWT token");
-        } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported: {}", e.getMessage());
-            throw new TokenValidationException("JWT token is unsupported");
-        } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty or argument invalid: {}", e.getMessage());
-            throw new TokenValidationException("JWT claims string is empty or argument invalid");
+            return false;
         } catch (Exception e) {
             log.error("Unexpected error validating token: {}", e.getMessage(), e);
             return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (ExpiredJwtException e) {
-            log.trace("Token expiration check confirmed expired via ExpiredJwtException");
-            return true;
-        } catch (Exception e) {
-            log.error("Could not determine token expiration: {}", e.getMessage());
-            return true;
-        }
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
     private Claims extractAllClaims(String token) {
+        verifications.increment();
         try {
-            return Jwts
-                    .parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
+            return keyRing.getParser()
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -168,11 +262,18 @@ public class JwtService {
 
     // --- Blacklist Check ---
 
-    public boolean isTokenBlacklisted(String token, TokenType type) {
+    public boolean isTokenBlacklisted(VerifiedToken token, TokenType type) {
         try {
-            token = normalizeToken(token);
-            log.trace("Checking repository if token is blacklisted ({}): {}", type, token);
-            return blacklistedTokenRepository.existsByTokenAndTokenType(token, type);
+            byte[] digest = TokenDigests.revocationDigest(token);
+            if (blacklistWriteBehindQueue.isRecentlyRevoked(digest)) {
+                return true;
+            }
+            if (!blacklistBloomFilter.mightContain(digest)) {
+                return false;
+            }
+            log.trace("Checking repository if token is blacklisted ({}): {}", type, TokenDigests.toHex(digest));
+            return blacklistedTokenRepository.existsByTokenDigestAndTokenTypeAndExpiryDate(
+                    digest, type, token.getExpiration());
         } catch (Exception e) {
             log.error("Database error checking blacklisted token: {}", e.getMessage(), e);
             // Fail-safe
@@ -194,55 +295,46 @@ public class JwtService {
         token = normalizeToken(token);
         log.debug("Attempting to blacklist {} token: {}", type, token);
         try {
-            Claims claims = extractAllClaims(token);
-            String userEmail = claims.getSubject();
-            Date expirationDate = claims.getExpiration();
+            VerifiedToken verifiedToken = verifyToken(token);
+            String userEmail = verifiedToken.getSubject();
+            Instant expirationDate = verifiedToken.getExpiration();
 
             if (userEmail == null || expirationDate == null) {
                 log.error("Extracted userEmail or expirationDate is null. Cannot blacklist token: {}", token);
                 throw new TokenValidationException("Token claims invalid for blacklisting (null subject or expiration)");
             }
 
-            boolean exists = blacklistedTokenRepository.existsByTokenAndTokenType(token, type);
-            if (exists) {
+            byte[] digest = TokenDigests.revocationDigest(verifiedToken);
+            if (blacklistWriteBehindQueue.isRecentlyRevoked(digest)) {
                 log.warn("{} Token already blacklisted! Token: {}", type, token);
                 return;
             }
 
             BlacklistedToken blacklistedToken = BlacklistedToken.builder()
-                    .token(token)
+                    .tokenDigest(digest)
                     .userEmail(userEmail)
-                    .expiryDate(expirationDate.toInstant())
+                    .expiryDate(expirationDate)
                     .blacklistedAt(Instant.now())
                     .tokenType(type)
                     .build();
 
-            blacklistedTokenRepository.save(blacklistedToken);
-            log.info("{} token blacklisted successfully and saved for user: {}", type, userEmail);
+            // Duplicates are skipped by the insert itself, so no existence check is needed here
+            blacklistWriteBehindQueue.enqueue(blacklistedToken);
+            verifiedTokenCache.invalidate(token);
+            // Updates the local Bloom filter and those of every other node
+            revocationEventBus.publish(RevocationEvent.tokenBlacklisted(userEmail, TokenDigests.toHex(digest), expirationDate));
+            log.info("{} token blacklisted successfully for user: {}", type, userEmail);
 
         } catch (ExpiredJwtException eje) {
             log.warn("Attempted to blacklist an already expired token ({}): {}", type, eje.getMessage());
-        } catch (DataIntegrityViolationException dive) {
-            log.error("Database constraint violation while saving blacklisted token. Token: {} {}", type, token, dive);
-            throw new TokenValidationException("Error saving blacklisted token due to DB constraints");
+        } catch (TokenValidationException tve) {
+            throw tve;
         } catch (Exception e) {
             log.error("Unexpected error during token blacklisting process. Token: {} {}", type, token, e);
             throw new TokenValidationException("Error blacklisting token: " + e.getMessage());
         }
     }
 
-    @Scheduled(cron = "0 0 0 * * ?")
-    public void cleanupExpiredTokens() {
-        log.info("Starting scheduled cleanup of expired blacklisted tokens.");
-        try {
-            Instant now = Instant.now();
-            int deletedCount = blacklistedTokenRepository.deleteExpiredTokens(now);
-            log.info("Cleaned up {} expired blacklisted tokens older than {}", deletedCount, now);
-        } catch (Exception e) {
-            log.error("Error during scheduled cleanup of expired tokens: {}", e.getMessage(), e);
-        }
-    }
-
     public String extractTokenFromHeader(String authHeader) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             log.warn("Attempted to extract token from invalid header: {}", authHeader);
@@ -0,0 +1,73 @@
+package za.co.eyetv.usersecurity.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the application's password encoder and picks its BCrypt work factor.
+ *
+ * New hashes are stored as {@code {bcrypt}$2a$<strength>$...}, so the scheme and cost travel with every hash.
+ * Hashes written before the prefix was introduced are plain BCrypt and are still accepted. Both kinds
+ * report {@link PasswordEncoder#upgradeEncoding} when they are unprefixed or weaker than the current
+ * strength, which lets the authentication provider rehash them on the next successful login.
+ */
+@Slf4j
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int CALIBRATION_STRENGTH = 8;
+    private static final int CALIBRATION_ROUNDS = 5;
+
+    private PasswordEncoders() {
+    }
+
+    public static PasswordEncoder delegating(int bcryptStrength) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT,
+                Map.of(BCRYPT, new BCryptPasswordEncoder(bcryptStrength)));
+        // Legacy hashes carry no {id} prefix
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(bcryptStrength));
+        return encoder;
+    }
+
+    /**
+     * Picks the lowest BCrypt strength whose hash takes at least {@code targetMs} on this machine.
+     * Each strength step doubles the cost, so one cheap measurement is enough to extrapolate.
+     */
+    public static int calibrateBcryptStrength(long targetMs, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(CALIBRATION_STRENGTH);
+        // Warm up so the JIT does not inflate the measurement
+        probe.encode(CALIBRATION_PASSWORD);
+        long started = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            probe.encode(CALIBRATION_PASSWORD);
+        }
+        double measuredMs = Math.max((System.nanoTime() - started) / 1_000_000.0 / CALIBRATION_ROUNDS, 0.01);
+
+        int strength = CALIBRATION_STRENGTH + (int) Math.ceil(Math.log(targetMs / measuredMs) / Math.log(2));
+        int chosen = Math.max(minStrength, Math.min(maxStrength, strength));
+        log.info("BCrypt strength {} takes {} ms here; using strength {} for a {} ms target (about {} ms per hash)",
+                CALIBRATION_STRENGTH, String.format("%.2f", measuredMs), chosen, targetMs,
+                Math.round(measuredMs * Math.pow(2, chosen - CALIBRATION_STRENGTH)));
+        return chosen;
+    }
+
+    /**
+     * Whether the value is already a hash this application can verify, with or without the {@code {bcrypt}} prefix.
+     */
+    public static boolean isEncoded(String password) {
+        if (password == null) {
+            return false;
+        }
+        String prefix = "{" + BCRYPT + "}";
+        String hash = password.startsWith(prefix) ? password.substring(prefix.length()) : password;
+        return BCRYPT_HASH.matcher(hash).matches();
+    }
+}
@@ -0,0 +1,94 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.exception.PasswordHashingUnavailableException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated pool for work dominated by password hashing: login, registration and password changes.
+ * Bulk registration and imports use the separate {@link BulkHashingExecutor}.
+ *
+ * BCrypt costs tens of milliseconds of CPU per call, so running it on servlet threads lets a login storm
+ * starve token-authenticated traffic. This pool has one thread per core and a bounded queue; when the
+ * queue is full new work is rejected straight away with {@link PasswordHashingUnavailableException}
+ * (503) instead of queueing without limit.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Counter rejections;
+
+    public PasswordHashingExecutor(UserProperties userProperties, MeterRegistry meterRegistry) {
+        UserProperties.Password properties = userProperties.getPassword();
+        int threads = properties.getHashingThreads() > 0
+                ? properties.getHashingThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getHashingQueueCapacity()),
+                threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.waitTimer = Timer.builder("users.password.hashing.wait")
+                .description("Time password work spends queued before a hashing thread picks it up")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("users.password.hashing.rejected")
+                .description("Password work rejected because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("users.password.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Password work waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("users.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the task on the hashing pool.
+     *
+     * @throws PasswordHashingUnavailableException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Timer.Sample queued = Timer.start();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queued.stop(waitTimer);
+                return task.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Password hashing queue is full ({} waiting), rejecting request", executor.getQueue().size());
+            throw new PasswordHashingUnavailableException("Authentication service is busy, please retry shortly");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package za.co.eyetv.usersecurity.security;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Reads PEM keys from configuration: PKCS#8 private keys ({@code BEGIN PRIVATE KEY}) and X.509 public keys
+ * ({@code BEGIN PUBLIC KEY}), as written by {@code openssl pkcs8 -topk8 -nocrypt} and {@code openssl pkey -pubout}.
+ */
+public final class PemKeys {
+
+    private PemKeys() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @param keyAlgorithm JCA key algorithm, {@code EC} or {@code RSA}
+     */
+    public static PrivateKey privateKey(String pem, String keyAlgorithm) {
+        try {
+            return KeyFactory.getInstance(keyAlgorithm).generatePrivate(new PKCS8EncodedKeySpec(decode(pem, "PRIVATE KEY")));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + keyAlgorithm + " private key: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param keyAlgorithm JCA key algorithm, {@code EC} or {@code RSA}
+     */
+    public static PublicKey publicKey(String pem, String keyAlgorithm) {
+        try {
+            return KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(decode(pem, "PUBLIC KEY")));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid " + keyAlgorithm + " public key: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads an EC or RSA public key, whichever the PEM holds.
+     */
+    public static PublicKey publicKey(String pem) {
+        try {
+            return publicKey(pem, "EC");
+        } catch (IllegalArgumentException e) {
+            return publicKey(pem, "RSA");
+        }
+    }
+
+    private static byte[] decode(String pem, String type) {
+        if (pem == null || pem.isBlank()) {
+            throw new IllegalArgumentException("Missing PEM " + type.toLowerCase());
+        }
+        String body = pem
+                .replace("-----BEGIN " + type + "-----", "")
+                .replace("-----END " + type + "-----", "")
+                .replaceAll("\\s", "");
+        if (body.contains("-----")) {
+            throw new IllegalArgumentException("Expected a PEM " + type.toLowerCase()
+                    + " (PKCS#8 for private keys, X.509 SubjectPublicKeyInfo for public keys)");
+        }
+        return Base64.getDecoder().decode(body);
+    }
+}
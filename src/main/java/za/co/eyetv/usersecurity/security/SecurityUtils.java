@@ -32,6 +32,10 @@ public final class SecurityUtils {
         if (authentication.getPrincipal() instanceof UserDetails userDetails) {
             return Optional.of(userDetails.getUsername());
         }
+
+        if (authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            return Optional.of(jwtPrincipal.email());
+        }
         
         if (authentication.getPrincipal() instanceof String s) {
             return Optional.of(s);
@@ -59,6 +63,21 @@ public final class SecurityUtils {
         return Optional.empty();
     }
 
+    /**
+     * Get the current user as a JwtPrincipal, as set in stateless authentication mode.
+     *
+     * @return the current JwtPrincipal, or empty if not authenticated statelessly
+     */
+    public static Optional<JwtPrincipal> getCurrentJwtPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            return Optional.of(jwtPrincipal);
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * Get the current user.
      *
@@ -0,0 +1,93 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import za.co.eyetv.usersecurity.config.RateLimitProperties;
+import za.co.eyetv.usersecurity.dto.ErrorDTO;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits {@code /api/service/**} per authenticated client, so one misbehaving gateway cannot starve the
+ * others of token introspection.
+ *
+ * Runs after {@link JwtAuthenticationFilter}, keyed by the authenticated account. Requests without an
+ * authentication pass through untouched and are rejected by the authorization rules instead.
+ */
+@Component
+@Slf4j
+public class ServiceRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String SERVICE_PATH = "/api/service/";
+
+    private final boolean enabled;
+    private final TokenBucketLimiter clientLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter rejections;
+
+    public ServiceRateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.clientLimiter = new TokenBucketLimiter(properties.getClient().getRequestsPerMinute(),
+                properties.getClient().getBurst(), properties.getMaximumBuckets(), properties.getIdleEvictionMs());
+        this.objectMapper = objectMapper;
+        this.rejections = Counter.builder("auth.ratelimit.rejected").tag("scope", "client")
+                .description("Auth requests rejected by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + SERVICE_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        Optional<String> client = SecurityUtils.getCurrentUserLogin();
+        if (client.isPresent()) {
+            long wait = clientLimiter.tryAcquire(client.get(), System.nanoTime());
+            if (wait > 0) {
+                rejections.increment();
+                reject(request, response, client.get(), wait);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, String client, long waitNanos)
+            throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.warn("Rate limited {} {} for service client {}, retry after {} s",
+                request.getMethod(), request.getRequestURI(), client, retryAfterSeconds);
+        ErrorDTO error = ErrorDTO.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase())
+                .message("Too many requests, please retry later")
+                .path("uri=" + request.getRequestURI())
+                .build();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
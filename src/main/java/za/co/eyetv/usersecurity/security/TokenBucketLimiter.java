@@ -0,0 +1,60 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by an arbitrary string, implemented as the generic cell rate algorithm.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next request,
+ * updated with compare-and-set, so there is no lock per bucket or around the map. Buckets live in a
+ * Guava cache, which is segmented internally and evicts idle and least recently used buckets.
+ */
+final class TokenBucketLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+
+    TokenBucketLimiter(int requestsPerMinute, int burst, long maximumBuckets, long idleEvictionMs) {
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleEvictionMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(requestsPerMinute, 1);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(burst, 1);
+    }
+
+    /**
+     * Takes a token from the key's bucket.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until it would be
+     */
+    long tryAcquire(String key, long nowNanos) {
+        AtomicLong theoreticalArrival;
+        try {
+            theoreticalArrival = buckets.get(key, () -> new AtomicLong(nowNanos));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long allowedAt = next - burstToleranceNanos;
+            if (allowedAt > nowNanos) {
+                return allowedAt - nowNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    long size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,35 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-width identifiers for tokens, used wherever a token has to be stored or looked up.
+ */
+public final class TokenDigests {
+
+    public static final int DIGEST_LENGTH = 32;
+
+    private TokenDigests() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * SHA-256 of the {@code jti} claim, or of the compact token for tokens issued before
+     * {@code jti} was added. The fallback matches how existing blacklist rows were migrated.
+     */
+    public static byte[] revocationDigest(VerifiedToken token) {
+        String jti = token.getClaims().getId();
+        return sha256(jti != null ? jti : token.getToken());
+    }
+
+    public static byte[] sha256(String value) {
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).asBytes();
+    }
+
+    public static String toHex(byte[] digest) {
+        return BaseEncoding.base16().lowerCase().encode(digest);
+    }
+}
@@ -0,0 +1,88 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached per-user revocation epochs ({@code users.token_version}).
+ *
+ * A token is only accepted while its {@code ver} claim is at least the user's current version,
+ * so bumping the version revokes every token of that user without any blacklist rows.
+ */
+@Component
+@Slf4j
+public class TokenVersionRegistry {
+
+    public static final String VERSION_CLAIM = "ver";
+
+    // Unknown users have no valid tokens
+    private static final int UNKNOWN_USER_VERSION = Integer.MAX_VALUE;
+
+    private final LoadingCache<String, Integer> versions;
+
+    public TokenVersionRegistry(UserRepository userRepository,
+                                JwtProperties jwtProperties,
+                                RevocationEventBus revocationEventBus) {
+        this.versions = CacheBuilder.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(jwtProperties.getTokenVersionCacheTtlMs(), TimeUnit.MILLISECONDS)
+                .build(new CacheLoader<String, Integer>() {
+                    @Override
+                    public Integer load(String email) {
+                        return userRepository.findTokenVersionByEmail(email).orElse(UNKNOWN_USER_VERSION);
+                    }
+                });
+        revocationEventBus.subscribe(this::onRevocationEvent);
+    }
+
+    private void onRevocationEvent(RevocationEvent event) {
+        switch (event.type()) {
+            case USER_CHANGED -> invalidate(event.subject());
+            case RESYNC -> versions.invalidateAll();
+            default -> {
+                // Token blacklisting does not change versions
+            }
+        }
+    }
+
+    /**
+     * Tokens issued before versions were introduced carry no {@code ver} claim and count as version 0.
+     * A token whose user's version cannot be loaded is not current.
+     */
+    public boolean isCurrent(VerifiedToken token) {
+        if (token.getSubject() == null) {
+            return false;
+        }
+        Integer tokenVersion = token.getClaims().get(VERSION_CLAIM, Integer.class);
+        int version = tokenVersion != null ? tokenVersion : 0;
+        try {
+            return version >= currentVersion(token.getSubject());
+        } catch (Exception e) {
+            log.error("Database error loading token version: {}", e.getMessage(), e);
+            // Fail-safe
+            return false;
+        }
+    }
+
+    public int currentVersion(String email) {
+        return versions.getUnchecked(email);
+    }
+
+    /**
+     * Drops the cached version on this node only; use the {@link RevocationEventBus} to reach all nodes.
+     */
+    public void invalidate(String email) {
+        if (email != null) {
+            versions.invalidate(email);
+        }
+    }
+}
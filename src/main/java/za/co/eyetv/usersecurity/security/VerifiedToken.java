@@ -0,0 +1,89 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A JWT whose signature has already been verified and whose claims have been decoded.
+ *
+ * Produced once per request by {@link JwtService#verifyToken(String)} and handed to every
+ * downstream check (subject, expiry, role, blacklist) so the compact JWS is never parsed twice.
+ */
+@Getter
+public final class VerifiedToken {
+
+    private final String token;
+    private final Claims claims;
+
+    VerifiedToken(String token, Claims claims) {
+        this.token = token;
+        this.claims = claims;
+    }
+
+    public String getSubject() {
+        return claims.getSubject();
+    }
+
+    /**
+     * Database id of the user, or {@code null} for tokens issued before the claim was added.
+     */
+    public Long getUserId() {
+        return claims.get(JwtService.USER_ID_CLAIM, Long.class);
+    }
+
+    public Instant getIssuedAt() {
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.toInstant() : null;
+    }
+
+    public Instant getExpiration() {
+        Date expiration = claims.getExpiration();
+        return expiration != null ? expiration.toInstant() : null;
+    }
+
+    public boolean isExpired() {
+        Instant expiration = getExpiration();
+        return expiration == null || expiration.isBefore(Instant.now());
+    }
+
+    /**
+     * Roles as issued by {@link JwtService}, e.g. {@code ["ROLE_ADMIN"]}.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getRoles() {
+        Object roles = claims.get(JwtService.ROLES_CLAIM);
+        if (roles instanceof List<?> list) {
+            return Collections.unmodifiableList((List<String>) list);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * The {@code typ} claim, or {@code null} for tokens issued before it was added
+     * (see {@link JwtService#tokenType(VerifiedToken)}).
+     */
+    public TokenType getTokenType() {
+        String type = claims.get(JwtService.TOKEN_TYPE_CLAIM, String.class);
+        if (type == null) {
+            return null;
+        }
+        try {
+            return TokenType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Legacy single-role claim, e.g. {@code { ..., "role": "ADMIN", ... }}.
+     */
+    public String getRole() {
+        return claims.get("role", String.class);
+    }
+}
@@ -0,0 +1,72 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.stereotype.Component;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers tokens whose signature and claims have already been verified, so clients that
+ * present the same token thousands of times skip HMAC verification and JSON decoding.
+ *
+ * Only the verification result is cached: expiry, token version and blacklist are still
+ * checked on every request. Entries are keyed by SHA-256 of the compact token (a weaker hash
+ * would let a forged token collide with a cached one) and are never returned past the token's
+ * {@code exp}. Hit and miss counts are exported as {@code jwt.verified-tokens} cache metrics.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        JwtProperties.VerifiedTokenCache properties = jwtProperties.getVerifiedTokenCache();
+        this.enabled = properties.isEnabled();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                // Upper bound for memory; each entry is additionally capped at its own exp on read
+                .expireAfterWrite(Math.max(jwtProperties.getExpirationMs(), jwtProperties.getRefreshExpirationMs()),
+                        TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+
+    public VerifiedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(token);
+        VerifiedToken verifiedToken = cache.getIfPresent(key);
+        if (verifiedToken != null && verifiedToken.isExpired()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    public void put(VerifiedToken verifiedToken) {
+        if (enabled && !verifiedToken.isExpired()) {
+            cache.put(key(verifiedToken.getToken()), verifiedToken);
+        }
+    }
+
+    public void invalidate(String token) {
+        if (enabled) {
+            cache.invalidate(key(token));
+        }
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static String key(String token) {
+        return TokenDigests.toHex(TokenDigests.sha256(token));
+    }
+}
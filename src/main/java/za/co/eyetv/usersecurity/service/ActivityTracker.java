@@ -0,0 +1,132 @@
+package za.co.eyetv.usersecurity.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.UserProperties;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records when users were last seen without writing to the database on every request.
+ *
+ * {@link #record(Long)} only updates an in-memory map, so repeated requests from one user between flushes
+ * collapse into a single entry. The map is written to {@code users.last_active} every
+ * {@code users.activity.flush-interval-ms} with one {@code UPDATE ... FROM unnest(...)} statement per chunk,
+ * and once more on shutdown. A timestamp never moves {@code last_active} backwards.
+ */
+@Service
+@Slf4j
+public class ActivityTracker {
+
+    private static final String UPDATE_SQL = """
+            UPDATE users u SET last_active = a.last_active
+            FROM unnest(?::bigint[], ?::timestamptz[]) AS a(id, last_active)
+            WHERE u.id = a.id AND (u.last_active IS NULL OR u.last_active < a.last_active)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserProperties.Activity properties;
+    private final Map<Long, Instant> lastSeen = new ConcurrentHashMap<>();
+    private final Counter flushedUsers;
+
+    public ActivityTracker(JdbcTemplate jdbcTemplate, UserProperties userProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = userProperties.getActivity();
+        this.flushedUsers = Counter.builder("users.activity.flushed")
+                .description("User last-active timestamps written to the database")
+                .register(meterRegistry);
+        Gauge.builder("users.activity.pending", lastSeen, Map::size)
+                .description("Users with activity not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Notes that the user was active now. Never blocks and never touches the database.
+     */
+    public void record(Long userId) {
+        if (userId == null || !properties.isEnabled()) {
+            return;
+        }
+        lastSeen.put(userId, Instant.now());
+    }
+
+    @Scheduled(fixedDelayString = "${users.activity.flush-interval-ms:30000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error flushing user activity: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        scheduledFlush();
+    }
+
+    /**
+     * Writes and clears the recorded activity.
+     *
+     * @return the number of users written
+     */
+    public int flush() {
+        List<Long> ids = new ArrayList<>();
+        List<Timestamp> timestamps = new ArrayList<>();
+        int written = 0;
+        Iterator<Map.Entry<Long, Instant>> entries = lastSeen.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, Instant> entry = entries.next();
+            // remove(key, value) keeps an entry that was refreshed while we were reading it for the next flush
+            if (lastSeen.remove(entry.getKey(), entry.getValue())) {
+                ids.add(entry.getKey());
+                timestamps.add(Timestamp.from(entry.getValue()));
+            }
+            if (ids.size() >= properties.getMaxBatchSize() || !entries.hasNext()) {
+                written += update(ids, timestamps);
+                ids.clear();
+                timestamps.clear();
+            }
+        }
+        if (written > 0) {
+            log.debug("Flushed last-active timestamps for {} users", written);
+        }
+        return written;
+    }
+
+    private int update(List<Long> ids, List<Timestamp> timestamps) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(UPDATE_SQL);
+                Array idArray = connection.createArrayOf("bigint", ids.toArray());
+                Array timestampArray = connection.createArrayOf("timestamptz", timestamps.toArray());
+                ps.setArray(1, idArray);
+                ps.setArray(2, timestampArray);
+                return ps;
+            });
+        } catch (RuntimeException e) {
+            // Put the activity back unless the user has been seen again since
+            for (int i = 0; i < ids.size(); i++) {
+                lastSeen.merge(ids.get(i), timestamps.get(i).toInstant(), (current, failed) -> current);
+            }
+            throw e;
+        }
+        flushedUsers.increment(ids.size());
+        return ids.size();
+    }
+}
@@ -1,7 +1,7 @@
 package za.co.eyetv.usersecurity.service;
 
-import com.google.common.util.concurrent.RateLimiter;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,14 +17,19 @@ import za.co.eyetv.usersecurity.dto.LoginRequest;
 import za.co.eyetv.usersecurity.dto.RegisterRequest;
 import za.co.eyetv.usersecurity.dto.UserDTO;
 import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
 import za.co.eyetv.usersecurity.repository.UserRepository;
 import za.co.eyetv.usersecurity.security.JwtService;
+import za.co.eyetv.usersecurity.security.PasswordHashingExecutor;
+import za.co.eyetv.usersecurity.security.VerifiedToken;
 import za.co.eyetv.usersecurity.model.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
@@ -35,7 +40,9 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final CustomUserDetailsService customUserDetailsService;
-    private final RateLimiter rateLimiter = RateLimiter.create(10.0); // 10 requests per second
+    private final ActivityTracker activityTracker;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptService loginAttemptService;
 
 
     @Autowired
@@ -43,34 +50,55 @@ public class AuthenticationService {
                                 PasswordEncoder passwordEncoder, 
                                 JwtService jwtService, 
                                 AuthenticationManager authenticationManager,
-                                CustomUserDetailsService customUserDetailsService) {
+                                CustomUserDetailsService customUserDetailsService,
+                                ActivityTracker activityTracker,
+                                PasswordHashingExecutor passwordHashingExecutor,
+                                LoginAttemptService loginAttemptService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
         this.customUserDetailsService = customUserDetailsService;
+        this.activityTracker = activityTracker;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.loginAttemptService = loginAttemptService;
     }
 
-    public AuthenticationResponse register(RegisterRequest request) {
-        // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new EmailAlreadyExistsException(request.getEmail());
-        }
+    /**
+     * Registers on the password hashing pool, keeping the BCrypt work off the servlet thread.
+     */
+    public CompletableFuture<AuthenticationResponse> registerAsync(RegisterRequest request) {
+        return passwordHashingExecutor.submit(() -> register(request));
+    }
 
-        // Check if username already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new UsernameAlreadyExistsException(request.getUsername());
-        }
+    /**
+     * Logs in on the password hashing pool, keeping the BCrypt work off the servlet thread.
+     * Locked accounts and sources are rejected before they take a place in the queue.
+     */
+    public CompletableFuture<AuthenticationResponse> loginAsync(LoginRequest request, String sourceIp) {
+        loginAttemptService.checkAllowed(request.getEmail(), sourceIp);
+        return passwordHashingExecutor.submit(() -> login(request, sourceIp));
+    }
 
+    /**
+     * Registers with a single insert; duplicates are detected by the unique constraints on {@code users}
+     * rather than checked up front, which also closes the race between check and insert.
+     */
+    public AuthenticationResponse register(RegisterRequest request) {
         var user = User.builder()
                 .username(request.getUsername())
+                .name(request.getUsername() != null ? request.getUsername() : request.getEmail())
                 .email(request.getEmail())
                 .password(passwordEncoder.encode(request.getPassword()))
                 .role(Roles.USER)
                 .active(true)
                 .build();
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateOf(request, e);
+        }
 
         // Create UserPrincipal from the saved user
         UserPrincipal userPrincipal = new UserPrincipal(user);
@@ -97,7 +125,8 @@ public class AuthenticationService {
                 .build();
     }
 
-    public AuthenticationResponse login(LoginRequest request) {
+    public AuthenticationResponse login(LoginRequest request, String sourceIp) {
+        loginAttemptService.checkAllowed(request.getEmail(), sourceIp);
         try {
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -106,11 +135,14 @@ public class AuthenticationService {
                     )
             );
         } catch (BadCredentialsException e) {
+            loginAttemptService.recordFailure(request.getEmail(), sourceIp);
             throw new PasswordMismatchException("Incorrect email or password.");
         }
+        loginAttemptService.recordSuccess(request.getEmail());
 
         UserPrincipal userPrincipal = (UserPrincipal) customUserDetailsService.loadUserByUsername(request.getEmail());
         User user = userPrincipal.getUser();
+        activityTracker.record(user.getId());
 
         Map<String, Object> extraClaims = new HashMap<>();
         extraClaims.put("roles", List.of("ROLE_" + user.getRole().name()));
@@ -133,9 +165,37 @@ public class AuthenticationService {
                 .build();
     }
 
+    private RuntimeException duplicateOf(RegisterRequest request, DataIntegrityViolationException e) {
+        String constraint = constraintName(e);
+        if (User.EMAIL_CONSTRAINT.equalsIgnoreCase(constraint)) {
+            return new EmailAlreadyExistsException(request.getEmail(), e);
+        }
+        if (User.USERNAME_CONSTRAINT.equalsIgnoreCase(constraint)) {
+            return new UsernameAlreadyExistsException(request.getUsername(), e);
+        }
+        // Constraints created before they were named carry generated names; only then pay for a lookup
+        if (userRepository.existsByEmail(request.getEmail())) {
+            return new EmailAlreadyExistsException(request.getEmail(), e);
+        }
+        if (request.getUsername() != null && userRepository.existsByUsername(request.getUsername())) {
+            return new UsernameAlreadyExistsException(request.getUsername(), e);
+        }
+        return e;
+    }
+
+    private static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
+    }
+
     public AuthenticationResponse refreshToken(String refreshToken) {
         try {
-            final String userEmail = jwtService.extractUsername(refreshToken);
+            final VerifiedToken verifiedToken = jwtService.verifyToken(refreshToken);
+            final String userEmail = verifiedToken.getSubject();
             if (userEmail == null) {
                 throw new InvalidRefreshTokenException("Invalid refresh token");
             }
@@ -143,7 +203,8 @@ public class AuthenticationService {
             UserPrincipal userPrincipal = (UserPrincipal) customUserDetailsService.loadUserByUsername(userEmail);
             User user = userPrincipal.getUser();
 
-            if (!jwtService.isTokenValid(refreshToken, userPrincipal)) {
+            // Access tokens cannot be exchanged for new ones
+            if (!jwtService.isTokenValid(verifiedToken, userPrincipal, TokenType.REFRESH)) {
                 throw new InvalidRefreshTokenException("Invalid refresh token");
             }
 
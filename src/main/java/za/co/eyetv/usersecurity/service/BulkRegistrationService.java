@@ -0,0 +1,208 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.BulkRegistrationRequest;
+import za.co.eyetv.usersecurity.dto.BulkRegistrationResponse;
+import za.co.eyetv.usersecurity.dto.RegisterRequest;
+import za.co.eyetv.usersecurity.exception.PasswordHashingUnavailableException;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.security.BulkHashingExecutor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Creates many users at once for admin onboarding.
+ *
+ * Users are processed in chunks of {@code users.bulk.batch-size}. For each chunk, emails and usernames that
+ * are already taken are looked up in one query so their passwords are never hashed, the rest are hashed in
+ * parallel slices on the {@link BulkHashingExecutor}, and the chunk is written with a single
+ * {@code INSERT ... SELECT FROM unnest(...) ON CONFLICT DO NOTHING}. Rows that lose a race with another
+ * insert are reported as skipped rather than failing the chunk. Each chunk commits on its own, so if the
+ * bulk pool is saturated the response reports the chunks already created instead of failing outright.
+ */
+@Service
+@Slf4j
+public class BulkRegistrationService {
+
+    static final String EXISTING_SQL = """
+            SELECT email, username FROM users
+            WHERE email = ANY(?::varchar[]) OR username = ANY(?::varchar[])""";
+
+    static final String INSERT_SQL = """
+            INSERT INTO users (email, name, username, password, role, active, token_version, created_at, last_active)
+            SELECT a.email, a.name, a.username, a.password, a.role, true, 0, now(), now()
+            FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[])
+                AS a(email, name, username, password, role)
+            ON CONFLICT DO NOTHING
+            RETURNING email""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final BulkHashingExecutor bulkHashingExecutor;
+    private final UserProperties.Bulk properties;
+    private final Counter createdUsers;
+
+    public BulkRegistrationService(JdbcTemplate jdbcTemplate,
+                                   PasswordEncoder passwordEncoder,
+                                   BulkHashingExecutor bulkHashingExecutor,
+                                   UserProperties userProperties,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.bulkHashingExecutor = bulkHashingExecutor;
+        this.properties = userProperties.getBulk();
+        this.createdUsers = Counter.builder("users.bulk.created")
+                .description("Users created through bulk registration and import")
+                .register(meterRegistry);
+    }
+
+    public BulkRegistrationResponse register(BulkRegistrationRequest request) {
+        long started = System.nanoTime();
+        Roles role = request.getRole() != null ? request.getRole() : Roles.USER;
+        List<String> skipped = new ArrayList<>();
+        int processed = 0;
+        int created = 0;
+        String error = null;
+
+        for (List<RegisterRequest> chunk : Lists.partition(request.getUsers(), properties.getBatchSize())) {
+            List<String> chunkSkipped = new ArrayList<>();
+            List<User> users;
+            try {
+                List<RegisterRequest> fresh = withoutTaken(chunk, r -> r, r -> chunkSkipped.add(r.getEmail()));
+                users = hash(fresh, role);
+            } catch (PasswordHashingUnavailableException e) {
+                // Nothing of this chunk was written; earlier chunks are committed and reported
+                error = e.getMessage();
+                log.warn("Bulk registration stopped after {} of {} users: {}", processed, request.getUsers().size(), error);
+                break;
+            }
+            Set<String> inserted = new HashSet<>(insert(users));
+            for (User user : users) {
+                // remove() so a second row with the same email in one request is reported as skipped
+                if (inserted.remove(user.getEmail())) {
+                    created++;
+                } else {
+                    chunkSkipped.add(user.getEmail());
+                }
+            }
+            skipped.addAll(chunkSkipped);
+            processed += chunk.size();
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Bulk registration created {} of {} users in {} ms", created, request.getUsers().size(), elapsedMs);
+        return BulkRegistrationResponse.builder()
+                .completed(error == null)
+                .error(error)
+                .requested(request.getUsers().size())
+                .processed(processed)
+                .created(created)
+                .skipped(skipped)
+                .elapsedMs(elapsedMs)
+                .build();
+    }
+
+    /**
+     * Hashes the passwords in one slice per bulk hashing thread and waits for all of them.
+     *
+     * @throws PasswordHashingUnavailableException if the bulk pool is saturated
+     */
+    public List<User> hash(List<RegisterRequest> requests, Roles role) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        int sliceSize = (requests.size() + bulkHashingExecutor.getThreads() - 1) / bulkHashingExecutor.getThreads();
+        List<CompletableFuture<List<User>>> slices = new ArrayList<>();
+        for (List<RegisterRequest> slice : Lists.partition(requests, sliceSize)) {
+            slices.add(bulkHashingExecutor.submit(() -> slice.stream().map(r -> toUser(r, role)).toList()));
+        }
+        List<User> users = new ArrayList<>(requests.size());
+        slices.forEach(slice -> users.addAll(slice.join()));
+        return users;
+    }
+
+    /**
+     * Inserts the users as active in one statement, skipping any whose email or username is taken.
+     *
+     * @return the emails of the users actually inserted
+     */
+    public List<String> insert(List<User> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        int size = users.size();
+        String[] emails = new String[size];
+        String[] names = new String[size];
+        String[] usernames = new String[size];
+        String[] passwords = new String[size];
+        String[] roles = new String[size];
+        for (int i = 0; i < size; i++) {
+            User user = users.get(i);
+            emails[i] = user.getEmail();
+            names[i] = user.getName();
+            usernames[i] = user.getUsername();
+            passwords[i] = user.getPassword();
+            roles[i] = user.getRole().name();
+        }
+        List<String> inserted = jdbcTemplate.queryForList(INSERT_SQL, String.class,
+                emails, names, usernames, passwords, roles);
+        createdUsers.increment(inserted.size());
+        return inserted;
+    }
+
+    /**
+     * Drops rows whose email or username is already taken, with one query for the whole chunk.
+     */
+    <T> List<T> withoutTaken(List<T> chunk, Function<T, RegisterRequest> requestOf, Consumer<T> taken) {
+        String[] emails = chunk.stream().map(row -> requestOf.apply(row).getEmail()).toArray(String[]::new);
+        String[] usernames = chunk.stream().map(row -> requestOf.apply(row).getUsername()).toArray(String[]::new);
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenUsernames = new HashSet<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(EXISTING_SQL, emails, usernames)) {
+            takenEmails.add((String) row.get("email"));
+            if (row.get("username") != null) {
+                takenUsernames.add((String) row.get("username"));
+            }
+        }
+        if (takenEmails.isEmpty()) {
+            return chunk;
+        }
+        List<T> fresh = new ArrayList<>(chunk.size());
+        for (T row : chunk) {
+            RegisterRequest request = requestOf.apply(row);
+            if (takenEmails.contains(request.getEmail()) || takenUsernames.contains(request.getUsername())) {
+                taken.accept(row);
+            } else {
+                fresh.add(row);
+            }
+        }
+        return fresh;
+    }
+
+    User toUser(RegisterRequest request, Roles role) {
+        return User.builder()
+                .email(request.getEmail())
+                .username(request.getUsername())
+                .name(request.getUsername() != null ? request.getUsername() : request.getEmail())
+                .password(passwordEncoder.encode(request.getPassword()))
+                .role(role)
+                .active(true)
+                .build();
+    }
+}
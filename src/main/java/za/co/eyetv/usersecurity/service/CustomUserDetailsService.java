@@ -1,30 +1,115 @@
 package za.co.eyetv.usersecurity.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
 import za.co.eyetv.usersecurity.repository.UserRepository;
 import za.co.eyetv.usersecurity.model.UserPrincipal;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads users by email for authentication.
+ *
+ * Principals are cached for {@code users.principal-cache.ttl-ms} so authenticated requests do not
+ * cost a database round trip. {@link UserService} publishes a {@link RevocationEvent} for every
+ * update, status toggle and delete, which evicts the entry on all nodes so role changes and
+ * deactivation take effect immediately.
+ *
+ * Also stores the upgraded hash when {@link za.co.eyetv.usersecurity.security.PasswordEncoders}
+ * reports that a password was hashed with outdated parameters.
+ */
 @Service
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final boolean cacheEnabled;
+    private final Cache<String, UserPrincipal> principals;
+    private final Timer loadTimer;
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    UserProperties userProperties,
+                                    RevocationEventBus revocationEventBus,
+                                    MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        UserProperties.PrincipalCache properties = userProperties.getPrincipalCache();
+        this.cacheEnabled = properties.isEnabled();
+        this.principals = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtlMs(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, principals, "users.principals");
+        this.loadTimer = Timer.builder("users.principals.load")
+                .description("Time taken to load a user principal from the database")
+                .register(meterRegistry);
+        revocationEventBus.subscribe(this::onRevocationEvent);
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (cacheEnabled) {
+            UserPrincipal cached = principals.getIfPresent(username);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        UserPrincipal principal = loadTimer.record(() -> load(username));
+        if (cacheEnabled) {
+            principals.put(username, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Stores a rehashed password after a successful login whose hash used an outdated scheme or work factor.
+     * {@code newPassword} is already encoded by the authentication provider; this is the only path that stores
+     * a hash as given.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String email = user.getUsername();
+        userRepository.updatePassword(email, newPassword);
+        evict(email);
+        log.info("Upgraded password hash for user: {}", email);
+        return load(email);
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            principals.invalidate(email);
+        }
+    }
+
+    private UserPrincipal load(String username) {
         // Find the user by email and wrap it in a UserPrincipal
         return userRepository.findByEmail(username)
                 .map(UserPrincipal::new)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
+
+    private void onRevocationEvent(RevocationEvent event) {
+        switch (event.type()) {
+            // The cached principal carries locked_until
+            case USER_CHANGED, ACCOUNT_UNLOCKED -> evict(event.subject());
+            case RESYNC -> principals.invalidateAll();
+            default -> {
+                // Token blacklisting does not change the principal
+            }
+        }
+    }
 }
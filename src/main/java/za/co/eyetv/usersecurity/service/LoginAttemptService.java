@@ -0,0 +1,261 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.LoginLockDTO;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.exception.LoginLockedException;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks failed logins per account and per source IP in sliding windows and locks them out with
+ * exponentially growing durations.
+ *
+ * {@link #checkAllowed} runs before the user is loaded or the password is hashed, so attempts against a
+ * locked account or from a locked source cost nothing. Counters live in memory on each node. When an account
+ * lock engages it is also written to {@code users.locked_until} and the cached principal is evicted everywhere,
+ * so {@code User.isAccountNonLocked()} rejects the account on other nodes before the password is checked.
+ * Unlocking is announced with {@link RevocationEvent.Type#ACCOUNT_UNLOCKED}, on which every node forgets the
+ * account's failures and lock.
+ */
+@Service
+@Slf4j
+public class LoginAttemptService {
+
+    public enum Scope { ACCOUNT, SOURCE }
+
+    private final UserRepository userRepository;
+    private final RevocationEventBus revocationEventBus;
+    private final UserProperties.Lockout properties;
+    private final Cache<String, AttemptWindow> accounts;
+    private final Cache<String, AttemptWindow> sources;
+    private final Counter lockouts;
+    private final Counter rejections;
+
+    public LoginAttemptService(UserRepository userRepository,
+                               RevocationEventBus revocationEventBus,
+                               UserProperties userProperties,
+                               MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.revocationEventBus = revocationEventBus;
+        this.properties = userProperties.getLockout();
+        // Idle entries can go once both their window and the longest lock have passed
+        long retentionMs = Math.max(properties.getWindowMs(), properties.getMaxLockMs());
+        this.accounts = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumTracked())
+                .expireAfterAccess(retentionMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.sources = CacheBuilder.newBuilder()
+                .maximumSize(properties.getMaximumTracked())
+                .expireAfterAccess(retentionMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.lockouts = Counter.builder("users.login.lockouts")
+                .description("Account and source lockouts engaged after repeated failed logins")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("users.login.locked.rejected")
+                .description("Login attempts rejected because the account or source is locked")
+                .register(meterRegistry);
+
+        revocationEventBus.subscribe(this::onRevocationEvent);
+    }
+
+    private void onRevocationEvent(RevocationEvent event) {
+        switch (event.type()) {
+            case ACCOUNT_UNLOCKED -> accounts.invalidate(normalize(event.subject()));
+            case RESYNC -> accounts.invalidateAll();
+            default -> {
+                // Other user changes leave the login history alone
+            }
+        }
+    }
+
+    /**
+     * @throws LoginLockedException if the account or the source is locked
+     */
+    public void checkAllowed(String email, String sourceIp) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        checkWindow(accounts.getIfPresent(normalize(email)), now);
+        checkWindow(sourceIp != null ? sources.getIfPresent(sourceIp) : null, now);
+    }
+
+    public void recordFailure(String email, String sourceIp) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String account = normalize(email);
+        if (account != null) {
+            long lockedUntil = window(accounts, account, properties.getAccountMaxFailures()).recordFailure(now);
+            if (lockedUntil > 0) {
+                lockouts.increment();
+                log.warn("Locked account {} until {} after repeated failed logins", account, Instant.ofEpochMilli(lockedUntil));
+                persistLock(email, Instant.ofEpochMilli(lockedUntil));
+            }
+        }
+        if (sourceIp != null) {
+            long lockedUntil = window(sources, sourceIp, properties.getSourceMaxFailures()).recordFailure(now);
+            if (lockedUntil > 0) {
+                lockouts.increment();
+                log.warn("Locked login source {} until {} after repeated failed logins", sourceIp, Instant.ofEpochMilli(lockedUntil));
+            }
+        }
+    }
+
+    /**
+     * Clears the account's failures and lock history. The source keeps its count, since one
+     * success does not make a source trustworthy.
+     */
+    public void recordSuccess(String email) {
+        String account = normalize(email);
+        if (account != null) {
+            accounts.invalidate(account);
+        }
+    }
+
+    /**
+     * Lifts an account lock in the database and on every node.
+     *
+     * @param email the email as stored for the user
+     */
+    public void unlockAccount(String email) {
+        userRepository.updateLockedUntil(email, null);
+        // Delivered here too, clearing the local window
+        revocationEventBus.publish(RevocationEvent.accountUnlocked(email));
+        log.info("Unlocked account {}", normalize(email));
+    }
+
+    /**
+     * Accounts and sources with failures or a lock on this node, most recently locked first.
+     */
+    public List<LoginLockDTO> getLocks() {
+        long now = System.currentTimeMillis();
+        List<LoginLockDTO> locks = new ArrayList<>();
+        collect(locks, Scope.ACCOUNT, accounts.asMap(), now);
+        collect(locks, Scope.SOURCE, sources.asMap(), now);
+        locks.sort(Comparator.comparing(LoginLockDTO::getLockedUntil, Comparator.nullsLast(Comparator.reverseOrder())));
+        return locks;
+    }
+
+    private void collect(List<LoginLockDTO> locks, Scope scope, Map<String, AttemptWindow> windows, long now) {
+        windows.forEach((key, window) -> {
+            LoginLockDTO lock = window.snapshot(scope, key, now);
+            if (lock.getRecentFailures() > 0 || lock.getLockedUntil() != null) {
+                locks.add(lock);
+            }
+        });
+    }
+
+    private void checkWindow(AttemptWindow window, long now) {
+        if (window == null) {
+            return;
+        }
+        long lockedUntil = window.lockedUntil(now);
+        if (lockedUntil > 0) {
+            rejections.increment();
+            throw new LoginLockedException(Instant.ofEpochMilli(lockedUntil));
+        }
+    }
+
+    /**
+     * Writes the lock for the email as entered, which is how the login looks the user up, so the
+     * update matches {@code users.email} exactly and can use its unique index.
+     */
+    private void persistLock(String email, Instant lockedUntil) {
+        try {
+            if (userRepository.updateLockedUntil(email, lockedUntil) > 0) {
+                // Principal caches are keyed by the email as entered
+                revocationEventBus.publish(RevocationEvent.userChanged(email));
+            }
+        } catch (Exception e) {
+            // The in-memory lock still holds on this node
+            log.error("Failed to persist lock for account {}: {}", normalize(email), e.getMessage(), e);
+        }
+    }
+
+    private AttemptWindow window(Cache<String, AttemptWindow> cache, String key, int maxFailures) {
+        try {
+            return cache.get(key, () -> new AttemptWindow(maxFailures));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String normalize(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Timestamps of the most recent failures in a ring buffer as long as the failure threshold,
+     * plus the current lock. The threshold is reached when the oldest of those failures is still
+     * inside the window.
+     */
+    private final class AttemptWindow {
+
+        private final long[] failures;
+        private int next;
+        private int recorded;
+        private int lockCount;
+        private long lockedUntil;
+
+        AttemptWindow(int maxFailures) {
+            this.failures = new long[Math.max(maxFailures, 1)];
+        }
+
+        synchronized long lockedUntil(long now) {
+            return lockedUntil > now ? lockedUntil : 0;
+        }
+
+        /**
+         * @return the end of the lock if this failure engaged one, otherwise 0
+         */
+        synchronized long recordFailure(long now) {
+            failures[next] = now;
+            next = (next + 1) % failures.length;
+            recorded = Math.min(recorded + 1, failures.length);
+            long oldest = failures[next];
+            if (recorded < failures.length || now - oldest > properties.getWindowMs() || lockedUntil > now) {
+                return 0;
+            }
+            long duration = Math.min(properties.getBaseLockMs() << Math.min(lockCount, 20), properties.getMaxLockMs());
+            lockCount++;
+            lockedUntil = now + duration;
+            recorded = 0;
+            return lockedUntil;
+        }
+
+        synchronized LoginLockDTO snapshot(Scope scope, String key, long now) {
+            int recent = 0;
+            for (int i = 0; i < recorded; i++) {
+                long failure = failures[Math.floorMod(next - 1 - i, failures.length)];
+                if (now - failure <= properties.getWindowMs()) {
+                    recent++;
+                }
+            }
+            return LoginLockDTO.builder()
+                    .scope(scope.name())
+                    .key(key)
+                    .recentFailures(recent)
+                    .lockCount(lockCount)
+                    .lockedUntil(lockedUntil > now ? Instant.ofEpochMilli(lockedUntil) : null)
+                    .build();
+        }
+    }
+}
@@ -3,9 +3,12 @@ package za.co.eyetv.usersecurity.service;
 import jakarta.validation.constraints.NotBlank;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import za.co.eyetv.usersecurity.exception.TokenValidationException;
 import za.co.eyetv.usersecurity.dto.LogoutResponse;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.repository.UserRepository;
 import za.co.eyetv.usersecurity.security.JwtService;
 
 /**
@@ -17,6 +20,8 @@ import za.co.eyetv.usersecurity.security.JwtService;
 @RequiredArgsConstructor
 public class LogoutService {
     private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final UserService userService;
 
     public LogoutResponse logout(
             @NotBlank(message = "Access token cannot be blank") String tokenToBlacklist,
@@ -54,4 +59,18 @@ public class LogoutService {
             throw new RuntimeException("Logout failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Logs the user out of every session by bumping their token version,
+     * without writing a blacklist row per token.
+     */
+    public LogoutResponse logoutEverywhere(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        userService.revokeAllTokens(user.getId());
+        log.info("User logged out of all sessions: {}", email);
+        return LogoutResponse.builder()
+                .message("Logged out of all sessions")
+                .build();
+    }
+}
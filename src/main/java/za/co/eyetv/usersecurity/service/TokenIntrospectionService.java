@@ -0,0 +1,230 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.google.common.collect.Lists;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.dto.TokenIntrospectionDTO;
+import za.co.eyetv.usersecurity.exception.TokenValidationException;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
+import za.co.eyetv.usersecurity.security.BlacklistBloomFilter;
+import za.co.eyetv.usersecurity.security.BlacklistWriteBehindQueue;
+import za.co.eyetv.usersecurity.security.JwtService;
+import za.co.eyetv.usersecurity.security.TokenDigests;
+import za.co.eyetv.usersecurity.security.TokenVersionRegistry;
+import za.co.eyetv.usersecurity.security.VerifiedToken;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates batches of tokens for the gateway and sibling services.
+ *
+ * Signatures are verified through the {@link za.co.eyetv.usersecurity.security.VerifiedTokenCache}, so tokens seen
+ * before cost nothing; large batches are split into slices verified on a dedicated bounded pool, never the common
+ * fork-join pool. When that pool is saturated the request thread verifies its own slices. Then the token version is
+ * checked and every possibly revoked token of the batch is confirmed with one blacklist query. Only Bloom filter
+ * hits reach that query, so a batch of unrevoked tokens usually needs no database round trip at all.
+ *
+ * Introspection answers access checks, so refresh tokens are reported as inactive.
+ */
+@Service
+@Slf4j
+public class TokenIntrospectionService {
+
+    // Below this, handing the batch to the pool costs more than verifying it here; also the smallest slice
+    static final int PARALLEL_THRESHOLD = 32;
+
+    /**
+     * The expiry date is the partition key, so passing it prunes the lookup to the partitions that can hold the
+     * tokens. Digests are bound as a hex text array and decoded in the query.
+     */
+    static final String BLACKLISTED_SQL = """
+            SELECT DISTINCT token_digest FROM blacklisted_tokens
+            WHERE expiry_date = ANY(?::timestamptz[])
+              AND token_digest = ANY(ARRAY(SELECT decode(d, 'hex') FROM unnest(?::text[]) AS d))""";
+
+    private final JwtService jwtService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final BlacklistBloomFilter blacklistBloomFilter;
+    private final BlacklistWriteBehindQueue blacklistWriteBehindQueue;
+    private final JdbcTemplate jdbcTemplate;
+    private final DistributionSummary batchSizes;
+    private final Counter inactiveTokens;
+    private final ThreadPoolExecutor executor;
+
+    public TokenIntrospectionService(JwtService jwtService,
+                                     TokenVersionRegistry tokenVersionRegistry,
+                                     BlacklistBloomFilter blacklistBloomFilter,
+                                     BlacklistWriteBehindQueue blacklistWriteBehindQueue,
+                                     JdbcTemplate jdbcTemplate,
+                                     JwtProperties jwtProperties,
+                                     MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.blacklistBloomFilter = blacklistBloomFilter;
+        this.blacklistWriteBehindQueue = blacklistWriteBehindQueue;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSizes = DistributionSummary.builder("jwt.introspection.batch.size")
+                .description("Tokens per introspection request")
+                .register(meterRegistry);
+        this.inactiveTokens = Counter.builder("jwt.introspection.inactive")
+                .description("Introspected tokens reported as inactive")
+                .register(meterRegistry);
+
+        JwtProperties.Introspection introspection = jwtProperties.getIntrospection();
+        int threads = introspection.getThreads() > 0
+                ? introspection.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(introspection.getQueueCapacity()),
+                // Saturated (or shut down): the request thread verifies the slice; CallerRunsPolicy would drop it
+                // on shutdown and leave the request waiting forever
+                threadFactory(), (slice, pool) -> slice.run());
+        Gauge.builder("jwt.introspection.queue", executor, e -> e.getQueue().size())
+                .description("Introspection slices waiting for a thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return one result per token, in the order given
+     */
+    public List<TokenIntrospectionDTO> introspect(List<String> tokens) {
+        batchSizes.record(tokens.size());
+        List<VerifiedToken> verified = tokens.size() >= PARALLEL_THRESHOLD ? verifyInSlices(tokens) : verifyAll(tokens);
+
+        Set<String> blacklisted = findBlacklisted(verified.stream().filter(Objects::nonNull).toList());
+
+        List<TokenIntrospectionDTO> results = new ArrayList<>(verified.size());
+        for (VerifiedToken token : verified) {
+            if (token == null || blacklisted.contains(TokenDigests.toHex(TokenDigests.revocationDigest(token)))) {
+                inactiveTokens.increment();
+                results.add(TokenIntrospectionDTO.inactive());
+            } else {
+                results.add(toDTO(token));
+            }
+        }
+        return results;
+    }
+
+    private List<VerifiedToken> verifyAll(List<String> tokens) {
+        return tokens.stream().map(this::verify).toList();
+    }
+
+    /**
+     * Verifies slices on the pool and the first one on the calling thread, which would otherwise just wait.
+     */
+    private List<VerifiedToken> verifyInSlices(List<String> tokens) {
+        int sliceCount = executor.getCorePoolSize() + 1;
+        int sliceSize = Math.max(PARALLEL_THRESHOLD, (tokens.size() + sliceCount - 1) / sliceCount);
+        List<List<String>> slices = Lists.partition(tokens, sliceSize);
+        List<CompletableFuture<List<VerifiedToken>>> pending = new ArrayList<>(slices.size() - 1);
+        for (List<String> slice : slices.subList(1, slices.size())) {
+            pending.add(CompletableFuture.supplyAsync(() -> verifyAll(slice), executor));
+        }
+
+        List<VerifiedToken> verified = new ArrayList<>(tokens.size());
+        verified.addAll(verifyAll(slices.get(0)));
+        for (CompletableFuture<List<VerifiedToken>> slice : pending) {
+            verified.addAll(slice.join());
+        }
+        return verified;
+    }
+
+    /**
+     * @return the verified access token, or {@code null} if it is malformed, wrongly signed, expired, of a revoked
+     * version or a refresh token
+     */
+    private VerifiedToken verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            VerifiedToken verified = jwtService.verifyToken(token);
+            return !verified.isExpired()
+                    && jwtService.tokenType(verified) == TokenType.ACCESS
+                    && tokenVersionRegistry.isCurrent(verified) ? verified : null;
+        } catch (ExpiredJwtException | TokenValidationException e) {
+            return null;
+        } catch (Exception e) {
+            log.error("Unexpected error introspecting token: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Hex digests of the tokens that are blacklisted, in either token type; the digest identifies the token alone.
+     */
+    Set<String> findBlacklisted(List<VerifiedToken> tokens) {
+        Set<String> blacklisted = new HashSet<>();
+        List<VerifiedToken> candidates = new ArrayList<>();
+        for (VerifiedToken token : tokens) {
+            byte[] digest = TokenDigests.revocationDigest(token);
+            if (blacklistWriteBehindQueue.isRecentlyRevoked(digest)) {
+                blacklisted.add(TokenDigests.toHex(digest));
+            } else if (blacklistBloomFilter.mightContain(digest)) {
+                candidates.add(token);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return blacklisted;
+        }
+
+        String[] expiries = candidates.stream().map(token -> token.getExpiration().toString()).distinct().toArray(String[]::new);
+        String[] digests = candidates.stream()
+                .map(token -> TokenDigests.toHex(TokenDigests.revocationDigest(token)))
+                .toArray(String[]::new);
+        try {
+            jdbcTemplate.query(BLACKLISTED_SQL,
+                    rs -> { blacklisted.add(TokenDigests.toHex(rs.getBytes("token_digest"))); },
+                    expiries, digests);
+        } catch (Exception e) {
+            log.error("Database error checking {} blacklisted token candidate(s): {}", candidates.size(), e.getMessage(), e);
+            // Fail-safe, as for single tokens in JwtService
+            blacklisted.addAll(List.of(digests));
+        }
+        return blacklisted;
+    }
+
+    private TokenIntrospectionDTO toDTO(VerifiedToken token) {
+        return TokenIntrospectionDTO.builder()
+                .active(true)
+                .tokenType(jwtService.tokenType(token))
+                .subject(token.getSubject())
+                .userId(token.getUserId())
+                .roles(token.getRoles())
+                .issuedAt(token.getIssuedAt())
+                .expiresAt(token.getExpiration())
+                .build();
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "token-introspector-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.eyetv.usersecurity.dto.UserExportDTO;
+import za.co.eyetv.usersecurity.dto.UserSummary;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes every user to an output stream in constant memory.
+ *
+ * Users are read through {@link UserRepository#streamAllSummaries()}, a server-side cursor over a projection,
+ * inside one read-only transaction. Each row is mapped to a {@link UserExportDTO} and written straight away, and
+ * no entities are loaded, so neither the result set nor the persistence context grows with the table. Password
+ * hashes are never read.
+ * CSV fields that a spreadsheet would evaluate as a formula are prefixed with {@code '}.
+ */
+@Service
+@Slf4j
+public class UserExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final String CSV_HEADER = "id,email,name,username,role,active,created_at,last_active";
+
+    // Leading characters that make spreadsheet applications treat a cell as a formula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    // Push rows to the client regularly rather than only when the buffer fills
+    private static final int FLUSH_EVERY_ROWS = 1_000;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public UserExportService(UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the number of users written
+     */
+    public long export(OutputStream output, Format format) throws IOException {
+        try {
+            Long written = transactionTemplate.execute(status -> {
+                try (Stream<UserSummary> users = userRepository.streamAllSummaries()) {
+                    return format == Format.CSV ? writeCsv(users.iterator(), output) : writeNdjson(users.iterator(), output);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} users as {}", written, format);
+            return written != null ? written : 0;
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterator<UserSummary> users, OutputStream output) throws IOException {
+        long count = 0;
+        SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(output);
+        while (users.hasNext()) {
+            writer.write(toDTO(users.next()));
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        // Closing flushes without closing the response stream
+        writer.close();
+        if (count > 0) {
+            output.write('\n');
+        }
+        output.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<UserSummary> users, OutputStream output) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (users.hasNext()) {
+            UserExportDTO user = toDTO(users.next());
+            writer.write(String.join(",",
+                    String.valueOf(user.getId()),
+                    csv(user.getEmail()),
+                    csv(user.getName()),
+                    csv(user.getUsername()),
+                    csv(user.getRole() != null ? user.getRole().name() : null),
+                    csv(user.getActive() != null ? user.getActive().toString() : null),
+                    csv(user.getCreatedAt() != null ? user.getCreatedAt().toString() : null),
+                    csv(user.getLastActive() != null ? user.getLastActive().toString() : null)));
+            writer.write('\n');
+            if (++count % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Takes {@code username} from the column; {@code User.getUsername()} returns the email for Spring Security.
+     */
+    private UserExportDTO toDTO(UserSummary user) {
+        return UserExportDTO.builder()
+                .id(user.id())
+                .email(user.email())
+                .name(user.name())
+                .username(user.username())
+                .role(user.role())
+                .active(user.active())
+                .createdAt(user.createdAt())
+                .lastActive(user.lastActive())
+                .build();
+    }
+
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            // Names and usernames are user-supplied; keep spreadsheets from running them
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,408 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.ImportRowError;
+import za.co.eyetv.usersecurity.dto.RegisterRequest;
+import za.co.eyetv.usersecurity.dto.UserImportReport;
+import za.co.eyetv.usersecurity.exception.PasswordHashingUnavailableException;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.security.BulkHashingExecutor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Imports users from a streamed NDJSON or CSV body without holding the file in memory.
+ *
+ * The import runs as a three-stage pipeline:
+ * <ol>
+ *   <li>the calling thread reads and parses rows one line at a time and groups them into batches of
+ *       {@code users.bulk.batch-size}, dropping rows whose email or username is already taken;</li>
+ *   <li>each batch is validated and hashed in parallel slices on the {@link BulkHashingExecutor}, apart
+ *       from the pool that hashes logins;</li>
+ *   <li>a single writer thread inserts hashed batches through {@link BulkRegistrationService#insert}.</li>
+ * </ol>
+ * At most {@code users.bulk.max-in-flight-batches} batches are between stages 1 and 3 at a time, so parsing
+ * waits for hashing and writing instead of buffering the upload. Lines longer than {@code users.bulk.max-line-length}
+ * are never held in memory. A failed write stops the import; rows that fail to parse or validate, or are too
+ * long, are reported and skipped.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final long HASHING_RETRY_DELAY_MS = 100;
+    private static final int HASHING_MAX_RETRIES = 100;
+
+    private final BulkRegistrationService bulkRegistrationService;
+    private final BulkHashingExecutor bulkHashingExecutor;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserProperties.Bulk properties;
+
+    public UserImportService(BulkRegistrationService bulkRegistrationService,
+                             BulkHashingExecutor bulkHashingExecutor,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             UserProperties userProperties) {
+        this.bulkRegistrationService = bulkRegistrationService;
+        this.bulkHashingExecutor = bulkHashingExecutor;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.properties = userProperties.getBulk();
+    }
+
+    public UserImportReport importUsers(InputStream input, Format format, Roles role) throws IOException {
+        Run run = new Run(role != null ? role : Roles.USER);
+        ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "user-import-writer"));
+        Semaphore inFlight = new Semaphore(properties.getMaxInFlightBatches());
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            int maxLineLength = properties.getMaxLineLength();
+            RowParser parser = format == Format.CSV
+                    ? CsvRowParser.fromHeader(readLine(reader, maxLineLength), maxLineLength)
+                    : this::parseJson;
+            long lineNumber = format == Format.CSV ? 1 : 0;
+            List<Row> batch = new ArrayList<>(properties.getBatchSize());
+            String line;
+            while (!run.isAborted() && (line = readLine(reader, maxLineLength)) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                run.read.incrementAndGet();
+                if (line.length() > maxLineLength) {
+                    run.fail(lineNumber, null, "Line is longer than " + maxLineLength + " characters");
+                    continue;
+                }
+                try {
+                    batch.add(new Row(lineNumber, parser.parse(line)));
+                } catch (IllegalArgumentException e) {
+                    run.fail(lineNumber, null, e.getMessage());
+                }
+                if (batch.size() >= properties.getBatchSize()) {
+                    submit(batch, run, inFlight, writer);
+                    batch = new ArrayList<>(properties.getBatchSize());
+                }
+            }
+            if (!batch.isEmpty() && !run.isAborted()) {
+                submit(batch, run, inFlight, writer);
+            }
+        } catch (IllegalArgumentException e) {
+            // Unusable CSV header
+            run.abort(e.getMessage());
+        } finally {
+            // Wait for every batch still hashing or being written
+            inFlight.acquireUninterruptibly(properties.getMaxInFlightBatches());
+            writer.shutdown();
+        }
+        return run.report();
+    }
+
+    private void submit(List<Row> batch, Run run, Semaphore inFlight, ExecutorService writer) {
+        inFlight.acquireUninterruptibly();
+        try {
+            List<Row> fresh = bulkRegistrationService.withoutTaken(batch, Row::request, row -> run.skipped.incrementAndGet());
+            hash(fresh, run)
+                    .thenAcceptAsync(users -> {
+                        int inserted = bulkRegistrationService.insert(users).size();
+                        run.created.addAndGet(inserted);
+                        // Lost a race with another insert, or repeated earlier in the same batch
+                        run.skipped.addAndGet(users.size() - inserted);
+                    }, writer)
+                    .whenComplete((done, e) -> {
+                        if (e != null) {
+                            run.failed.addAndGet(fresh.size());
+                            run.abort("Import stopped at the batch starting on line " + batch.get(0).line()
+                                    + ": " + rootMessage(e));
+                        }
+                        inFlight.release();
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            run.failed.addAndGet(batch.size());
+            run.abort("Import stopped: " + rootMessage(e));
+        }
+    }
+
+    /**
+     * Validates and hashes the batch in one slice per bulk hashing thread.
+     */
+    private CompletableFuture<List<User>> hash(List<Row> rows, Run run) {
+        if (rows.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        int threads = bulkHashingExecutor.getThreads();
+        List<CompletableFuture<List<User>>> slices = new ArrayList<>();
+        for (List<Row> slice : Lists.partition(rows, (rows.size() + threads - 1) / threads)) {
+            slices.add(submitHashing(slice, run));
+        }
+        return CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new))
+                .thenApply(done -> slices.stream().flatMap(slice -> slice.join().stream()).toList());
+    }
+
+    private CompletableFuture<List<User>> submitHashing(List<Row> slice, Run run) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return bulkHashingExecutor.submit(() -> validateAndHash(slice, run));
+            } catch (PasswordHashingUnavailableException e) {
+                // Other bulk registrations or imports filled the bulk queue; wait for it to drain
+                if (attempt >= HASHING_MAX_RETRIES) {
+                    throw e;
+                }
+                sleep(HASHING_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private List<User> validateAndHash(List<Row> slice, Run run) {
+        List<User> users = new ArrayList<>(slice.size());
+        for (Row row : slice) {
+            Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(row.request());
+            if (violations.isEmpty()) {
+                users.add(bulkRegistrationService.toUser(row.request(), run.role));
+            } else {
+                run.fail(row.line(), row.request().getEmail(), violations.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+        }
+        return users;
+    }
+
+    private RegisterRequest parseJson(String line) {
+        try {
+            RegisterRequest request = objectMapper.readValue(line, RegisterRequest.class);
+            if (request == null) {
+                throw new IllegalArgumentException("Row is null");
+            }
+            return request;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Reads one line, ending at {@code \n}, {@code \r\n} or the end of input, without buffering more than
+     * {@code maxLength + 1} characters of it. The rest of a longer line is consumed and dropped, so the caller
+     * can tell it was too long by its length.
+     *
+     * @return the line without its terminator, or {@code null} at the end of input
+     */
+    static String readLine(BufferedReader reader, int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        boolean read = false;
+        boolean truncated = false;
+        while ((c = reader.read()) != -1) {
+            read = true;
+            if (c == '\n') {
+                break;
+            }
+            if (line.length() <= maxLength) {
+                line.append((char) c);
+            } else {
+                truncated = true;
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        if (!truncated && !line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return line.toString();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the hashing pool", e);
+        }
+    }
+
+    private record Row(long line, RegisterRequest request) {
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        /**
+         * @throws IllegalArgumentException if the line is not a valid row
+         */
+        RegisterRequest parse(String line);
+    }
+
+    /**
+     * Parses comma-separated rows by the column names in the header. Fields may be double-quoted, with
+     * {@code ""} for a literal quote; a row must fit on one line.
+     */
+    static final class CsvRowParser implements RowParser {
+
+        private final int email;
+        private final int username;
+        private final int password;
+
+        private CsvRowParser(int email, int username, int password) {
+            this.email = email;
+            this.username = username;
+            this.password = password;
+        }
+
+        static CsvRowParser fromHeader(String header, int maxLineLength) {
+            if (header == null) {
+                throw new IllegalArgumentException("CSV body is empty");
+            }
+            if (header.length() > maxLineLength) {
+                throw new IllegalArgumentException("CSV header is longer than " + maxLineLength + " characters");
+            }
+            List<String> columns = split(header).stream().map(c -> c.trim().toLowerCase(Locale.ROOT)).toList();
+            if (!columns.contains("email") || !columns.contains("password")) {
+                throw new IllegalArgumentException("CSV header must name the email and password columns");
+            }
+            return new CsvRowParser(columns.indexOf("email"), columns.indexOf("username"), columns.indexOf("password"));
+        }
+
+        @Override
+        public RegisterRequest parse(String line) {
+            List<String> fields = split(line);
+            return RegisterRequest.builder()
+                    .email(field(fields, email))
+                    .username(field(fields, username))
+                    .password(field(fields, password))
+                    .build();
+        }
+
+        private static String field(List<String> fields, int index) {
+            if (index < 0 || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return fields.get(index);
+        }
+
+        static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Unterminated quoted field");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * Counters and errors of one import, updated from the parsing, hashing and writer threads.
+     */
+    private final class Run {
+
+        private final Roles role;
+        private final long started = System.nanoTime();
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private volatile String abortReason;
+
+        Run(Roles role) {
+            this.role = role;
+        }
+
+        void fail(long line, String email, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < properties.getMaxReportedErrors()) {
+                    errors.add(new ImportRowError(line, email, message));
+                }
+            }
+        }
+
+        void abort(String reason) {
+            if (abortReason == null) {
+                abortReason = reason;
+                log.error("User import aborted: {}", reason);
+            }
+        }
+
+        boolean isAborted() {
+            return abortReason != null;
+        }
+
+        UserImportReport report() {
+            long elapsedNanos = System.nanoTime() - started;
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            double rowsPerSecond = elapsedNanos > 0 ? read.get() * 1_000_000_000.0 / elapsedNanos : 0;
+            log.info("User import read {} rows: {} created, {} skipped, {} failed in {} ms ({} rows/s)",
+                    read.get(), created.get(), skipped.get(), failed.get(), elapsedMs, Math.round(rowsPerSecond));
+            synchronized (errors) {
+                return UserImportReport.builder()
+                        .completed(!isAborted())
+                        .error(abortReason)
+                        .read(read.get())
+                        .created(created.get())
+                        .skipped(skipped.get())
+                        .failed(failed.get())
+                        .errors(List.copyOf(errors))
+                        .elapsedMs(elapsedMs)
+                        .rowsPerSecond(rowsPerSecond)
+                        .build();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package za.co.eyetv.usersecurity.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import za.co.eyetv.usersecurity.config.UserSearchIndexMigration;
+import za.co.eyetv.usersecurity.dto.UserSearchResultDTO;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix and substring search over user names, emails and usernames for the admin UI.
+ *
+ * Matches are {@code lower(column) LIKE '%term%'} on the three columns, which the trigram GIN indexes from
+ * {@link UserSearchIndexMigration} answer with a bitmap scan. Results are ranked by whether any column starts
+ * with the term, then by trigram similarity, and cut to a limit in the database. Terms shorter than
+ * {@link #MIN_TRIGRAM_TERM_LENGTH} contain no complete trigram, so a substring match could not use those
+ * indexes; they are matched as prefixes only ({@code lower(column) LIKE 'x%'}), which the
+ * {@code text_pattern_ops} btree indexes answer.
+ */
+@Service
+@Slf4j
+public class UserSearchService {
+
+    public static final int MIN_TRIGRAM_TERM_LENGTH = 3;
+    public static final int MAX_LIMIT = 100;
+
+    static final String RANKED_SQL = """
+            SELECT id, email, name, username, role, active,
+                   CASE WHEN lower(email) LIKE ? OR lower(username) LIKE ? OR lower(name) LIKE ? THEN 1 ELSE 0 END
+                   + GREATEST(similarity(lower(name), ?), similarity(lower(email), ?), similarity(lower(username), ?)) AS score
+            FROM users
+            WHERE lower(name) LIKE ? OR lower(email) LIKE ? OR lower(username) LIKE ?
+            ORDER BY score DESC, id
+            LIMIT ?""";
+
+    static final String UNRANKED_SQL = """
+            SELECT id, email, name, username, role, active,
+                   CASE WHEN lower(email) LIKE ? OR lower(username) LIKE ? OR lower(name) LIKE ? THEN 1 ELSE 0 END AS score
+            FROM users
+            WHERE lower(name) LIKE ? OR lower(email) LIKE ? OR lower(username) LIKE ?
+            ORDER BY score DESC, id
+            LIMIT ?""";
+
+    static final String PREFIX_SQL = """
+            SELECT id, email, name, username, role, active, 1 AS score
+            FROM users
+            WHERE lower(name) LIKE ? OR lower(email) LIKE ? OR lower(username) LIKE ?
+            ORDER BY id
+            LIMIT ?""";
+
+    private static final RowMapper<UserSearchResultDTO> ROW_MAPPER = (rs, rowNum) -> UserSearchResultDTO.builder()
+            .id(rs.getLong("id"))
+            .email(rs.getString("email"))
+            .name(rs.getString("name"))
+            .username(rs.getString("username"))
+            .role(rs.getString("role") != null ? Roles.valueOf(rs.getString("role")) : null)
+            .active(rs.getBoolean("active"))
+            .score(rs.getDouble("score"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserSearchIndexMigration searchIndex;
+
+    public UserSearchService(JdbcTemplate jdbcTemplate, UserSearchIndexMigration searchIndex) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.searchIndex = searchIndex;
+    }
+
+    public List<UserSearchResultDTO> search(String term, int limit) {
+        String normalized = term != null ? term.trim().toLowerCase(Locale.ROOT) : "";
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        String escaped = escapeLike(normalized);
+        String prefix = escaped + "%";
+        String contains = "%" + escaped + "%";
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (normalized.length() < MIN_TRIGRAM_TERM_LENGTH) {
+            return jdbcTemplate.query(PREFIX_SQL, ROW_MAPPER, prefix, prefix, prefix, cappedLimit);
+        }
+
+        if (searchIndex.isTrigramAvailable()) {
+            return jdbcTemplate.query(RANKED_SQL, ROW_MAPPER,
+                    prefix, prefix, prefix,
+                    normalized, normalized, normalized,
+                    contains, contains, contains,
+                    cappedLimit);
+        }
+        return jdbcTemplate.query(UNRANKED_SQL, ROW_MAPPER,
+                prefix, prefix, prefix,
+                contains, contains, contains,
+                cappedLimit);
+    }
+
+    /**
+     * Escapes LIKE wildcards so the term is matched literally; backslash is Postgres' default escape.
+     */
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -4,9 +4,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import za.co.eyetv.usersecurity.dto.UserDTO;
+import za.co.eyetv.usersecurity.dto.UserPageDTO;
+import za.co.eyetv.usersecurity.dto.UserSummary;
 import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.repository.UserSpecifications;
+import za.co.eyetv.usersecurity.util.UserCursor;
+import za.co.eyetv.usersecurity.util.UserMapper;
 import za.co.eyetv.usersecurity.repository.UserRepository;
+import za.co.eyetv.usersecurity.security.PasswordHashingExecutor;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
 
+import java.time.Instant;
 import java.util.List;
 /**
 *@author: Rethabile Ntsekhe
@@ -16,17 +29,76 @@ import java.util.List;
 @Slf4j
 public class UserService {
 
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final RevocationEventBus revocationEventBus;
+    private final UserMapper userMapper;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository,
+                       PasswordEncoder passwordEncoder,
+                       PasswordHashingExecutor passwordHashingExecutor,
+                       RevocationEventBus revocationEventBus,
+                       UserMapper userMapper) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.revocationEventBus = revocationEventBus;
+        this.userMapper = userMapper;
+    }
+
+    /**
+     * One page of users ordered by {@code (createdAt, id)}, continuing after {@code cursor} if given.
+     *
+     * Pages are read with a keyset predicate on the sort key rather than an offset and no total is counted,
+     * so every page costs one index range scan of {@code size + 1} rows however deep it is. Rows are selected
+     * straight into {@link UserSummary} projections; no entity is loaded.
+     */
+    public UserPageDTO<UserDTO> listUsers(Roles role, Boolean active, Instant lastActiveFrom, Instant lastActiveBefore,
+                                          Sort.Direction direction, String cursor, int size) {
+        UserCursor after = cursor != null && !cursor.isBlank() ? UserCursor.decode(cursor) : null;
+        // A cursor keeps the direction it was issued for
+        Sort.Direction order = after != null ? after.direction() : direction;
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Specification<User> filter = Specification.where(UserSpecifications.hasRole(role))
+                .and(UserSpecifications.isActive(active))
+                .and(UserSpecifications.lastActiveFrom(lastActiveFrom))
+                .and(UserSpecifications.lastActiveBefore(lastActiveBefore));
+        // One extra row tells whether another page follows
+        List<UserSummary> rows = userRepository.findSummaries(filter, order, after, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            UserSummary last = rows.get(limit - 1);
+            nextCursor = new UserCursor(last.createdAt(), last.id(), order).encode();
+        }
+        return UserPageDTO.<UserDTO>builder()
+                .items(userMapper.toDTOs(rows))
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    /**
+     * The user as a DTO, read as a projection without loading the entity.
+     */
+    public UserDTO getUserDTOById(Long id) {
+        return userRepository.findSummaryById(id)
+                .map(userMapper::toDTO)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * The user as a DTO, read as a projection without loading the entity.
+     */
+    public UserDTO getUserDTOByEmail(String email) {
+        return userRepository.findSummaryByEmail(email)
+                .map(userMapper::toDTO)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
     public User getUserById(Long id) {
@@ -36,6 +108,8 @@ public class UserService {
 
     public User updateUser(Long id, User userDetails) {
         User user = getUserById(id);
+        String previousEmail = user.getEmail();
+        boolean revokeTokens = false;
 
         if (userDetails.getName() != null) {
             user.setName(userDetails.getName());
@@ -47,31 +121,55 @@ public class UserService {
             user.setEmail(userDetails.getEmail());
         }
         if (userDetails.getPassword() != null && !userDetails.getPassword().isEmpty()) {
-            // Encode only if the password is not already encoded
+            // Always plaintext, even if it looks like a hash: storing a client-supplied hash would let the caller
+            // set a password without it passing through the encoder. Only the stored hash echoed back is skipped
             String newPassword = userDetails.getPassword();
             if (!newPassword.equals(user.getPassword())) {
-                if (!newPassword.startsWith("{bcrypt}")) { // Optional: Check if it's already encoded
-                    newPassword = passwordEncoder.encode(newPassword);
-                }
-                user.setPassword(newPassword);
+                // Hashed on the bounded pool like logins, so password changes cannot starve servlet threads of CPU
+                user.setPassword(passwordHashingExecutor.submit(() -> passwordEncoder.encode(newPassword)).join());
+                revokeTokens = true;
             }
         }
 
         if (userDetails.getActive() != null) {
+            revokeTokens |= Boolean.TRUE.equals(user.getActive()) && !userDetails.getActive();
             user.setActive(userDetails.getActive());
         }
 
         if (userDetails.getRole() != null) {
+            revokeTokens |= userDetails.getRole() != user.getRole();
             user.setRole(userDetails.getRole());
         }
 
-        return userRepository.save(user);
+        // Password, role and deactivation changes log the user out everywhere. The increment is atomic in the
+        // database and runs first, so a failed save leaves the user logged out rather than the change unrevoked
+        if (revokeTokens) {
+            userRepository.incrementTokenVersion(id);
+        }
+
+        User saved = userRepository.save(user);
+        revocationEventBus.publish(RevocationEvent.userChanged(previousEmail));
+        if (!previousEmail.equals(saved.getEmail())) {
+            revocationEventBus.publish(RevocationEvent.userChanged(saved.getEmail()));
+        }
+        return saved;
+    }
+
+    /**
+     * Revokes every outstanding access and refresh token of the user with a single write.
+     */
+    public void revokeAllTokens(Long id) {
+        User user = getUserById(id);
+        userRepository.incrementTokenVersion(id);
+        revocationEventBus.publish(RevocationEvent.userChanged(user.getEmail()));
+        log.info("Revoked all tokens for user with ID: {}", id);
     }
 
 
     public String deleteUser(Long id) {
         User user = getUserById(id);
         userRepository.delete(user);
+        revocationEventBus.publish(RevocationEvent.userChanged(user.getEmail()));
         if(userRepository.existsById(id)) {
             throw new RuntimeException("Failed to delete user");
         }else {
@@ -83,7 +181,13 @@ public class UserService {
     public User toggleUserStatus(Long id) {
         User user = getUserById(id);
         user.setActive(!user.getActive());
-        return userRepository.save(user);
+        if (!user.getActive()) {
+            // Deactivation revokes outstanding tokens immediately
+            userRepository.incrementTokenVersion(id);
+        }
+        User saved = userRepository.save(user);
+        revocationEventBus.publish(RevocationEvent.userChanged(saved.getEmail()));
+        return saved;
     }
 
 
@@ -0,0 +1,44 @@
+package za.co.eyetv.usersecurity.util;
+
+import org.springframework.data.domain.Sort;
+import za.co.eyetv.usersecurity.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination of users ordered by {@code (createdAt, id)}.
+ *
+ * The token is the URL-safe Base64 of the last row's sort key and the sort direction, so the next page
+ * is a range scan starting right after that row whatever page it is.
+ *
+ * @param createdAt creation time of the last row returned
+ * @param id        id of the last row returned
+ * @param direction sort direction the page was read in
+ */
+public record UserCursor(Instant createdAt, long id, Sort.Direction direction) {
+
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String raw = String.join("|", VERSION, createdAt.toString(), Long.toString(id), direction.name());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException if the token was not produced by {@link #encode()}
+     */
+    public static UserCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return new UserCursor(Instant.parse(parts[1]), Long.parseLong(parts[2]), Sort.Direction.valueOf(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package za.co.eyetv.usersecurity.util;
 
 import org.mapstruct.Mapper;
-import za.co.eyetv.usersecurity.model.User;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+import za.co.eyetv.usersecurity.dto.UserSummary;
 import za.co.eyetv.usersecurity.dto.UserDTO;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+
+import java.util.List;
 
 /**
 *@author: Rethabile Ntsekhe
 *@date: @date: 09-04-2025
 */
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
 public interface UserMapper {
-    UserDTO toDTO(User user);
-    User toEntity(UserDTO userDTO);
-}
+    @Mapping(target = "roles", source = "role")
+    UserDTO toDTO(UserSummary user);
 
+    List<UserDTO> toDTOs(List<UserSummary> users);
+
+    default List<String> toRoles(Roles role) {
+        return role != null ? List.of("ROLE_" + role.name()) : List.of();
+    }
+}
@@ -0,0 +1,166 @@
+package za.co.eyetv.usersecurity.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import za.co.eyetv.usersecurity.security.BlacklistBloomFilter;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latency of a blacklist lookup over 10M revoked tokens, keyed on the 32-byte digest in the partitioned
+ * {@code blacklisted_tokens} and, for comparison, on the full compact token in a varchar unique key as the
+ * table stored it before.
+ *
+ * Needs a Postgres the benchmark may create a schema in, given by {@code -Dbench.jdbc.url},
+ * {@code -Dbench.jdbc.username} and {@code -Dbench.jdbc.password}. The tokens are seeded once into the
+ * {@code blacklist_lookup_bench} schema and reused by later runs until a day's partition has been dropped.
+ * {@code blacklisted_tokens} is created the way Hibernate creates it and converted by
+ * {@link BlacklistedTokenSchemaMigration}, so the digest lookups run against the production layout. Run with
+ * {@code mvn test-compile exec:java -Dexec.mainClass=za.co.eyetv.usersecurity.config.BlacklistLookupBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlacklistLookupBenchmark {
+
+    private static final String SCHEMA = "blacklist_lookup_bench";
+    private static final int TOKENS = 10_000_000;
+    private static final int SAMPLE = 10_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private List<Object[]> digestKeys;
+    private List<Object[]> tokenKeys;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // One connection throughout, so the timings are not dominated by connecting for every lookup
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/postgres") + "?currentSchema=" + SCHEMA,
+                System.getProperty("bench.jdbc.username", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        JwtProperties properties = new JwtProperties();
+        BlacklistPartitionManager partitionManager = new BlacklistPartitionManager(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), properties, mock(BlacklistBloomFilter.class));
+        seedDigests(new BlacklistedTokenSchemaMigration(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), partitionManager), properties);
+        seedLegacyTokens();
+        jdbcTemplate.execute("ANALYZE blacklisted_tokens");
+        jdbcTemplate.execute("ANALYZE legacy_blacklisted_tokens");
+
+        // Look up revoked tokens spread over the whole table rather than one hot row
+        digestKeys = jdbcTemplate.query(
+                "SELECT token_digest, token_type, expiry_date FROM blacklisted_tokens ORDER BY random() LIMIT ?",
+                (rs, rowNum) -> new Object[]{rs.getBytes(1), rs.getString(2), rs.getObject(3, OffsetDateTime.class)},
+                SAMPLE);
+        tokenKeys = jdbcTemplate.query(
+                "SELECT token, token_type FROM legacy_blacklisted_tokens ORDER BY random() LIMIT ?",
+                (rs, rowNum) -> new Object[]{rs.getString(1), rs.getString(2)},
+                SAMPLE);
+    }
+
+    private void seedDigests(BlacklistedTokenSchemaMigration migration, JwtProperties properties) {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS blacklisted_tokens (
+                    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    blacklisted_at timestamp(6) with time zone,
+                    expiry_date timestamp(6) with time zone NOT NULL,
+                    token_digest bytea NOT NULL,
+                    token_type varchar(255) NOT NULL,
+                    user_email varchar(255) NOT NULL,
+                    CONSTRAINT uk_blacklisted_tokens_token_digest UNIQUE (token_digest, expiry_date))""");
+        // Partitions the table on the first run, and creates and drops the daily partitions on every run
+        migration.migrate();
+        Integer seeded = jdbcTemplate.queryForObject("SELECT count(*) FROM blacklisted_tokens", Integer.class);
+        if (seeded != null && seeded >= TOKENS) {
+            return;
+        }
+        jdbcTemplate.execute("TRUNCATE blacklisted_tokens");
+        // Expiries spread over the pre-created days, so every daily partition holds its share of the rows
+        jdbcTemplate.update("""
+                INSERT INTO blacklisted_tokens (token_digest, token_type, user_email, blacklisted_at, expiry_date)
+                SELECT sha256(convert_to(g::text, 'UTF8')),
+                       CASE WHEN g % 4 = 0 THEN 'REFRESH' ELSE 'ACCESS' END,
+                       'user' || (g % 100000) || '@example.com',
+                       now(),
+                       date_trunc('day', now()) + make_interval(days => (1 + g % ?)::int, secs => g % 86400)
+                FROM generate_series(1, ?) AS g""", properties.getBlacklist().getPartitionPrecreateDays(), TOKENS);
+    }
+
+    private void seedLegacyTokens() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS legacy_blacklisted_tokens (
+                    id bigserial PRIMARY KEY,
+                    token varchar(1024) NOT NULL UNIQUE,
+                    token_type varchar(255) NOT NULL,
+                    user_email varchar(255) NOT NULL,
+                    blacklisted_at timestamp(6) with time zone,
+                    expiry_date timestamp(6) with time zone)""");
+        Integer seeded = jdbcTemplate.queryForObject("SELECT count(*) FROM legacy_blacklisted_tokens", Integer.class);
+        if (seeded != null && seeded >= TOKENS) {
+            return;
+        }
+        jdbcTemplate.execute("TRUNCATE legacy_blacklisted_tokens");
+        // About the length of a compact HS256 JWS with the claims this service issues
+        jdbcTemplate.update("""
+                INSERT INTO legacy_blacklisted_tokens (token, token_type, user_email, blacklisted_at, expiry_date)
+                SELECT 'eyJhbGciOiJIUzI1NiJ9.' || repeat(md5(g::text), 6) || '.' || encode(sha256(convert_to(g::text, 'UTF8')), 'base64'),
+                       CASE WHEN g % 4 = 0 THEN 'REFRESH' ELSE 'ACCESS' END,
+                       'user' || (g % 100000) || '@example.com',
+                       now(),
+                       now() + make_interval(days => 1 + g % 7)
+                FROM generate_series(1, ?) AS g""", TOKENS);
+    }
+
+    /**
+     * The query behind {@code BlacklistedTokenRepository.existsByTokenDigestAndTokenTypeAndExpiryDate}.
+     */
+    @Benchmark
+    public Boolean digest() {
+        Object[] key = digestKeys.get(next++ % digestKeys.size());
+        return jdbcTemplate.queryForObject(
+                "SELECT exists(SELECT 1 FROM blacklisted_tokens WHERE token_digest = ? AND token_type = ? AND expiry_date = ?)",
+                Boolean.class, key);
+    }
+
+    /**
+     * The lookup before digests: {@code existsByTokenAndTokenType} on the full token.
+     */
+    @Benchmark
+    public Boolean legacyToken() {
+        Object[] key = tokenKeys.get(next++ % tokenKeys.size());
+        return jdbcTemplate.queryForObject(
+                "SELECT exists(SELECT 1 FROM legacy_blacklisted_tokens WHERE token = ? AND token_type = ?)",
+                Boolean.class, key);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BlacklistLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
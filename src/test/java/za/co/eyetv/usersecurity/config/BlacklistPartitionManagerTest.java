@@ -0,0 +1,92 @@
+package za.co.eyetv.usersecurity.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import za.co.eyetv.usersecurity.security.BlacklistBloomFilter;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlacklistPartitionManagerTest {
+
+    private final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+    private JdbcTemplate jdbcTemplate;
+    private BlacklistBloomFilter bloomFilter;
+    private BlacklistPartitionManager partitionManager;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.getBlacklist().setPartitionPrecreateDays(2);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        bloomFilter = mock(BlacklistBloomFilter.class);
+        partitionManager = new BlacklistPartitionManager(jdbcTemplate, mock(PlatformTransactionManager.class),
+                properties, bloomFilter);
+    }
+
+    @Test
+    void createsTheMissingDaysUnderTheSchemaLock() {
+        existingPartitions(today);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(), any())).thenReturn(0);
+
+        partitionManager.createMissingPartitions();
+
+        List<String> statements = executed();
+        assertThat(statements).contains(BlacklistPartitionManager.LOCK_SQL);
+        assertThat(statements).filteredOn(sql -> sql.startsWith("CREATE TABLE"))
+                .hasSize(2)
+                .anySatisfy(sql -> assertThat(sql).contains(BlacklistPartitionManager.partitionName(today.plusDays(1))))
+                .anySatisfy(sql -> assertThat(sql).contains(BlacklistPartitionManager.partitionName(today.plusDays(2))))
+                .allSatisfy(sql -> assertThat(sql).contains("PARTITION OF blacklisted_tokens FOR VALUES FROM"));
+    }
+
+    @Test
+    void dropsOnlyPartitionsWhoseDayHasPassed() {
+        existingPartitions(today.minusDays(3), today.minusDays(1), today, today.plusDays(1));
+
+        int dropped = partitionManager.dropExpiredPartitions();
+
+        assertThat(dropped).isEqualTo(2);
+        assertThat(executed()).filteredOn(sql -> sql.startsWith("DROP TABLE"))
+                .containsExactly(
+                        "DROP TABLE IF EXISTS " + BlacklistPartitionManager.partitionName(today.minusDays(3)),
+                        "DROP TABLE IF EXISTS " + BlacklistPartitionManager.partitionName(today.minusDays(1)));
+    }
+
+    @Test
+    void rebuildsTheBloomFilterAfterDroppingADay() {
+        existingPartitions(today.minusDays(1), today, today.plusDays(1), today.plusDays(2));
+        when(bloomFilter.isLoaded()).thenReturn(true);
+
+        partitionManager.maintain();
+
+        verify(bloomFilter).rebuild();
+    }
+
+    private void existingPartitions(LocalDate... days) {
+        List<String> names = Arrays.stream(days).map(BlacklistPartitionManager::partitionName).toList();
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(BlacklistPartitionManager.TABLE)))
+                .thenReturn(names);
+    }
+
+    private List<String> executed() {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(sql.capture());
+        return sql.getAllValues();
+    }
+}
@@ -0,0 +1,82 @@
+package za.co.eyetv.usersecurity.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.security.JwtKeyRing;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class JwksControllerTest {
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        PublicKey active = generator.generateKeyPair().getPublic();
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        PublicKey retired = rsa.generateKeyPair().getPublic();
+
+        JwtKeyRing keyRing = mock(JwtKeyRing.class);
+        when(keyRing.getPublishedKeys()).thenReturn(List.of(
+                new JwtKeyRing.PublishedKey("ec-1", SignatureAlgorithm.ES256, active),
+                new JwtKeyRing.PublishedKey("rsa-1", null, retired)));
+        JwtProperties properties = new JwtProperties();
+        properties.getSigning().setJwksMaxAgeSeconds(120);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new JwksController(keyRing, properties, new ObjectMapper())).build();
+    }
+
+    @Test
+    void servesTheKeysWithAnETagAndCacheControl() throws Exception {
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=120, public"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.keys[0].kid").value("ec-1"))
+                .andExpect(jsonPath("$.keys[0].alg").value("ES256"))
+                .andExpect(jsonPath("$.keys[1].kid").value("rsa-1"))
+                .andExpect(jsonPath("$.keys[1].alg").doesNotExist());
+    }
+
+    @Test
+    void answersARevalidationWithNotModified() throws Exception {
+        String eTag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=120, public"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void servesTheBodyWhenTheETagDoesNotMatch() throws Exception {
+        byte[] body = mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(body).isNotEmpty();
+    }
+}
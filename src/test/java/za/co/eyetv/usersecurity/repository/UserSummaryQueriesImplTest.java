@@ -0,0 +1,87 @@
+package za.co.eyetv.usersecurity.repository;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import za.co.eyetv.usersecurity.dto.UserSummary;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.util.UserCursor;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the keyset query against an in-memory database, so the ordering and the tie-break on {@code id}
+ * are checked by a real query planner rather than by the shape of the criteria.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UserSummaryQueriesImplTest {
+
+    private static final Instant T0 = Instant.parse("2025-04-09T00:00:00Z");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Seven users over three timestamps, so pages of two cut through runs of equal created_at
+        int[] secondsAfterT0 = {0, 0, 0, 10, 10, 20, 20};
+        for (int i = 0; i < secondsAfterT0.length; i++) {
+            jdbcTemplate.update("""
+                    INSERT INTO users (email, name, username, password, role, active, created_at, token_version)
+                    VALUES (?, ?, ?, 'x', ?, ?, ?, 0)""",
+                    "user" + i + "@example.com", "User " + i, "user" + i,
+                    (i % 2 == 0 ? Roles.DISPLAY : Roles.USER).name(), true,
+                    Timestamp.from(T0.plusSeconds(secondsAfterT0[i])));
+        }
+        ids.addAll(jdbcTemplate.queryForList("SELECT id FROM users ORDER BY created_at, id", Long.class));
+    }
+
+    @Test
+    void pagesAscendingThroughRowsSharingATimestamp() {
+        assertThat(readAllPages(null, Sort.Direction.ASC)).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void pagesDescendingThroughRowsSharingATimestamp() {
+        assertThat(readAllPages(null, Sort.Direction.DESC)).containsExactlyElementsOf(Lists.reverse(ids));
+    }
+
+    @Test
+    void combinesTheKeysetWithFilters() {
+        List<Long> display = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE role = 'DISPLAY' ORDER BY created_at, id", Long.class);
+
+        assertThat(readAllPages(UserSpecifications.hasRole(Roles.DISPLAY), Sort.Direction.ASC))
+                .containsExactlyElementsOf(display);
+    }
+
+    private List<Long> readAllPages(Specification<User> filter, Sort.Direction direction) {
+        List<Long> seen = new ArrayList<>();
+        UserCursor cursor = null;
+        while (true) {
+            List<UserSummary> page = userRepository.findSummaries(filter, direction, cursor, 2);
+            page.forEach(row -> seen.add(row.id()));
+            if (page.size() < 2) {
+                return seen;
+            }
+            UserSummary last = page.get(page.size() - 1);
+            cursor = new UserCursor(last.createdAt(), last.id(), direction);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import za.co.eyetv.usersecurity.config.RateLimitProperties;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthRateLimitFilterTest {
+
+    private AuthRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setIp(new RateLimitProperties.Limit(60, 5));
+        properties.setAccount(new RateLimitProperties.Limit(1, 2));
+        filter = new AuthRateLimitFilter(properties, new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void limitsAttemptsAgainstOneAccountAndKeepsTheBodyReadable() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = login("10.0.0." + i, "Screen@Example.com", chain);
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(chain.getRequest().getInputStream().readAllBytes()).isNotEmpty();
+        }
+
+        MockHttpServletResponse rejected = login("10.0.0.9", "screen@example.com", new MockFilterChain());
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isPositive();
+        assertThat(rejected.getContentAsString()).contains("Too many requests");
+    }
+
+    @Test
+    void limitsBurstsFromOneClient() throws Exception {
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (login("10.0.0.1", "user" + i + "@example.com", new MockFilterChain()).getStatus() == 200) {
+                allowed++;
+            }
+        }
+
+        assertThat(allowed).isEqualTo(5);
+    }
+
+    @Test
+    void limitsTheAccountWhenTheBodyHasNoContentLength() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login") {
+                @Override
+                public long getContentLengthLong() {
+                    // Chunked transfer encoding
+                    return -1;
+                }
+            };
+            request.setRemoteAddr("10.0.0." + i);
+            request.setContent("{\"email\":\"screen@example.com\"}".getBytes(StandardCharsets.UTF_8));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(i < 2 ? 200 : 429);
+        }
+    }
+
+    @Test
+    void rejectsBodiesTooLargeToInspect() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.setContent(("{\"email\":\"screen@example.com\",\"padding\":\""
+                + "x".repeat(AuthRateLimitFilter.MAX_INSPECTED_BODY_BYTES) + "\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void ignoresOtherEndpoints() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse login(String ip, String email, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
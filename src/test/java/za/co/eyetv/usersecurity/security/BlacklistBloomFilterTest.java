@@ -0,0 +1,72 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.InMemoryRevocationEventBus;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BlacklistBloomFilterTest {
+
+    private BlacklistedTokenRepository repository;
+    private InMemoryRevocationEventBus eventBus;
+    private BlacklistBloomFilter bloomFilter;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.getBlacklist().setBloomExpectedInsertions(1_000);
+        repository = mock(BlacklistedTokenRepository.class);
+        eventBus = new InMemoryRevocationEventBus();
+        bloomFilter = new BlacklistBloomFilter(repository, mock(PlatformTransactionManager.class),
+                properties, eventBus, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void treatsEveryTokenAsPossibleHitUntilLoaded() {
+        assertThat(bloomFilter.isLoaded()).isFalse();
+        assertThat(bloomFilter.mightContain(TokenDigests.sha256("never-revoked"))).isTrue();
+    }
+
+    @Test
+    void rebuildLoadsLiveTokensAndKeepsLaterInserts() {
+        when(repository.countByExpiryDateAfter(any())).thenReturn(2L);
+        when(repository.streamTokenDigestsExpiringAfter(any()))
+                .thenReturn(Stream.of(TokenDigests.sha256("jti-1"), TokenDigests.sha256("jti-2")));
+
+        bloomFilter.rebuild();
+        bloomFilter.put(TokenDigests.sha256("jti-3"));
+
+        assertThat(bloomFilter.isLoaded()).isTrue();
+        assertThat(bloomFilter.mightContain(TokenDigests.sha256("jti-1"))).isTrue();
+        assertThat(bloomFilter.mightContain(TokenDigests.sha256("jti-3"))).isTrue();
+        assertThat(bloomFilter.mightContain(TokenDigests.sha256("never-revoked"))).isFalse();
+        assertThat(bloomFilter.getSizeInBytes()).isPositive();
+        assertThat(bloomFilter.getExpectedFalsePositiveRate()).isLessThan(0.001);
+    }
+
+    @Test
+    void appliesTokensBlacklistedThroughTheEventBus() {
+        when(repository.countByExpiryDateAfter(any())).thenReturn(0L);
+        when(repository.streamTokenDigestsExpiringAfter(any())).thenReturn(Stream.empty());
+        bloomFilter.rebuild();
+
+        byte[] digest = TokenDigests.sha256("jti-remote");
+        eventBus.publish(RevocationEvent.tokenBlacklisted("screen@example.com", TokenDigests.toHex(digest),
+                Instant.now().plus(1, ChronoUnit.HOURS)));
+
+        assertThat(bloomFilter.mightContain(digest)).isTrue();
+    }
+}
@@ -0,0 +1,61 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlacklistPurgeJobTest {
+
+    private BlacklistedTokenRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtProperties properties;
+    private BlacklistPurgeJob purgeJob;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.getBlacklist().setPurgeBatchSize(100);
+        properties.getBlacklist().setPurgePauseMs(0);
+        repository = mock(BlacklistedTokenRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        purgeJob = new BlacklistPurgeJob(repository, mock(BlacklistBloomFilter.class), properties, meterRegistry);
+    }
+
+    @Test
+    void deletesInBatchesUntilTableIsClean() {
+        when(repository.deleteExpiredTokensBatch(any(), eq(100))).thenReturn(100, 100, 30);
+
+        long purged = purgeJob.purge(Instant.now());
+
+        assertThat(purged).isEqualTo(230);
+        verify(repository, times(3)).deleteExpiredTokensBatch(any(), eq(100));
+        assertThat(meterRegistry.get("jwt.blacklist.purge.rows").counter().count()).isEqualTo(230.0);
+        assertThat(meterRegistry.get("jwt.blacklist.purge.batch").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("jwt.blacklist.purge.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void stopsWhenTimeBudgetIsSpentAndReportsBacklog() {
+        properties.getBlacklist().setPurgeTimeBudgetMs(0);
+        when(repository.deleteExpiredTokensBatch(any(), eq(100))).thenReturn(100);
+        when(repository.countByExpiryDateBefore(any())).thenReturn(5_000L);
+
+        long purged = purgeJob.purge(Instant.now());
+
+        assertThat(purged).isEqualTo(100);
+        verify(repository, times(1)).deleteExpiredTokensBatch(any(), eq(100));
+        assertThat(meterRegistry.get("jwt.blacklist.purge.backlog").gauge().value()).isEqualTo(5_000.0);
+    }
+}
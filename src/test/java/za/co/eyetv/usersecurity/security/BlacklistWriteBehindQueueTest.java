@@ -0,0 +1,103 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.InMemoryRevocationEventBus;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.model.BlacklistedToken;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BlacklistWriteBehindQueueTest {
+
+    private JwtProperties properties;
+    private JdbcTemplate jdbcTemplate;
+    private InMemoryRevocationEventBus eventBus;
+    private BlacklistWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.getBlacklist().setFlushSize(3);
+        properties.getBlacklist().setFlushIntervalMs(60_000);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventBus = new InMemoryRevocationEventBus();
+        queue = new BlacklistWriteBehindQueue(jdbcTemplate, properties, eventBus, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void revocationIsVisibleBeforeItIsWrittenAndFlushedAsOneBatch() {
+        queue.start();
+        queue.enqueue(token("jti-1"));
+        assertThat(queue.isRecentlyRevoked(TokenDigests.sha256("jti-1"))).isTrue();
+
+        queue.enqueue(token("jti-2"));
+        queue.enqueue(token("jti-3"));
+
+        verify(jdbcTemplate, timeout(2_000)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        assertThat(queue.getPendingCount()).isZero();
+    }
+
+    @Test
+    void drainsQueueOnShutdown() throws InterruptedException {
+        queue.start();
+        queue.enqueue(token("jti-1"));
+        queue.enqueue(token("jti-2"));
+
+        queue.stop();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+        assertThat(queue.getPendingCount()).isZero();
+    }
+
+    @Test
+    void remembersTokensRevokedOnOtherNodes() {
+        byte[] digest = TokenDigests.sha256("jti-remote");
+        eventBus.publish(RevocationEvent.tokenBlacklisted("screen@example.com", TokenDigests.toHex(digest),
+                Instant.now().plus(1, ChronoUnit.HOURS)));
+
+        assertThat(queue.isRecentlyRevoked(digest)).isTrue();
+        assertThat(queue.isRecentlyRevoked(TokenDigests.sha256("jti-other"))).isFalse();
+    }
+
+    @Test
+    void remembersRemoteRevocationsUntilTheTokenExpires() {
+        // The row may have been lost with the node that queued it, so the fallback TTL must not apply
+        properties.getBlacklist().setRecentlyRevokedTtlMs(0);
+        queue = new BlacklistWriteBehindQueue(jdbcTemplate, properties, eventBus, new SimpleMeterRegistry());
+        byte[] live = TokenDigests.sha256("jti-live");
+        byte[] expired = TokenDigests.sha256("jti-expired");
+
+        eventBus.publish(RevocationEvent.tokenBlacklisted("screen@example.com", TokenDigests.toHex(live),
+                Instant.now().plus(1, ChronoUnit.HOURS)));
+        eventBus.publish(RevocationEvent.tokenBlacklisted("screen@example.com", TokenDigests.toHex(expired),
+                Instant.now().minusSeconds(1)));
+
+        assertThat(queue.isRecentlyRevoked(live)).isTrue();
+        assertThat(queue.isRecentlyRevoked(expired)).isFalse();
+    }
+
+    private static BlacklistedToken token(String jti) {
+        return BlacklistedToken.builder()
+                .tokenDigest(TokenDigests.sha256(jti))
+                .tokenType(TokenType.ACCESS)
+                .userEmail("screen@example.com")
+                .blacklistedAt(Instant.now())
+                .expiryDate(Instant.now().plus(1, ChronoUnit.HOURS))
+                .build();
+    }
+}
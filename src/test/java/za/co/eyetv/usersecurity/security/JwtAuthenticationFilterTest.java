@@ -0,0 +1,188 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.InMemoryRevocationEventBus;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.UserPrincipal;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+import za.co.eyetv.usersecurity.service.ActivityTracker;
+import za.co.eyetv.usersecurity.service.CustomUserDetailsService;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that an authenticated request costs exactly one JWS verification.
+ */
+class JwtAuthenticationFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private UserPrincipal principal;
+    private JwtProperties properties;
+    private CustomUserDetailsService userDetailsService;
+    private ActivityTracker activityTracker;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.setSecret("c78cc026cf3d324bbcb92b080d0edc3295b33a922ec2473b644d2d8a01fc43b5");
+        properties.setExpirationMs(3600000);
+        properties.setRefreshExpirationMs(86400000);
+
+        BlacklistedTokenRepository blacklistedTokenRepository = mock(BlacklistedTokenRepository.class);
+        when(blacklistedTokenRepository.existsByTokenDigestAndTokenTypeAndExpiryDate(any(), any(), any())).thenReturn(false);
+
+        meterRegistry = new SimpleMeterRegistry();
+        RevocationEventBus eventBus = new InMemoryRevocationEventBus();
+        BlacklistBloomFilter bloomFilter = new BlacklistBloomFilter(blacklistedTokenRepository,
+                mock(PlatformTransactionManager.class), properties, eventBus, meterRegistry);
+        BlacklistWriteBehindQueue writeBehindQueue = new BlacklistWriteBehindQueue(
+                mock(JdbcTemplate.class), properties, eventBus, meterRegistry);
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionByEmail("screen@example.com")).thenReturn(Optional.of(0));
+        jwtService = new JwtService(properties, new JwtKeyRing(properties),
+                new VerifiedTokenCache(properties, meterRegistry), blacklistedTokenRepository,
+                bloomFilter, writeBehindQueue, new TokenVersionRegistry(userRepository, properties, eventBus), eventBus, meterRegistry);
+
+        principal = new UserPrincipal(User.builder()
+                .id(1L)
+                .email("screen@example.com")
+                .username("screen")
+                .name("Screen")
+                .password("{noop}secret")
+                .role(Roles.DISPLAY)
+                .build());
+
+        activityTracker = mock(ActivityTracker.class);
+        userDetailsService = mock(CustomUserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("screen@example.com")).thenReturn(principal);
+
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, activityTracker, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatedRequestVerifiesTokenOnce() throws Exception {
+        String token = jwtService.generateToken(principal);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        assertThat(meterRegistry.get("jwt.verifications").counter().count()).isEqualTo(1.0);
+        verify(activityTracker).record(1L);
+    }
+
+    @Test
+    void repeatedTokenIsServedFromVerifiedTokenCache() throws Exception {
+        String token = jwtService.generateToken(principal);
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+            request.addHeader("Authorization", "Bearer " + token);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        }
+
+        assertThat(meterRegistry.get("jwt.verifications").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void statelessModeAuthenticatesFromClaimsWithoutUserLookup() throws Exception {
+        properties.setStatelessAuthentication(true);
+        JwtAuthenticationFilter statelessFilter = new JwtAuthenticationFilter(jwtService, userDetailsService, activityTracker, properties);
+        String token = jwtService.generateToken(principal);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        statelessFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isEqualTo(
+                new JwtPrincipal(1L, "screen@example.com", List.of("ROLE_DISPLAY")));
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_DISPLAY");
+        verify(userDetailsService, never()).loadUserByUsername(any());
+    }
+
+    @Test
+    void statelessModeRejectsTokenWhenTokenVersionCannotBeLoaded() throws Exception {
+        properties.setStatelessAuthentication(true);
+        JwtAuthenticationFilter statelessFilter = new JwtAuthenticationFilter(jwtService, userDetailsService, activityTracker, properties);
+        when(userRepository.findTokenVersionByEmail("screen@example.com"))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+        request.addHeader("Authorization", "Bearer " + jwtService.generateToken(principal));
+
+        statelessFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void invalidSignatureLeavesRequestUnauthenticated() throws Exception {
+        String token = jwtService.generateToken(principal);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+        request.addHeader("Authorization", "Bearer " + token.substring(0, token.length() - 2) + "xx");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    void refreshTokenIsNotAcceptedAsBearerCredential() throws Exception {
+        for (boolean stateless : new boolean[]{false, true}) {
+            properties.setStatelessAuthentication(stateless);
+            JwtAuthenticationFilter modeFilter = new JwtAuthenticationFilter(jwtService, userDetailsService, activityTracker, properties);
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+            request.addHeader("Authorization", "Bearer " + jwtService.generateRefreshToken(principal));
+
+            modeFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+            assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        }
+    }
+
+    @Test
+    void legacyRefreshTokenWithoutTypeIsToldApartByLifetime() {
+        VerifiedToken refresh = jwtService.verifyToken(jwtService.generateRefreshToken(principal));
+        refresh.getClaims().remove(JwtService.TOKEN_TYPE_CLAIM);
+
+        assertThat(jwtService.tokenType(refresh)).isEqualTo(TokenType.REFRESH);
+        assertThat(jwtService.tokenType(jwtService.verifyToken(jwtService.generateToken(principal))))
+                .isEqualTo(TokenType.ACCESS);
+    }
+}
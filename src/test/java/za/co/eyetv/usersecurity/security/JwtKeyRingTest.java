@@ -0,0 +1,121 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JwtKeyRingTest {
+
+    private static final String SECRET = "c78cc026cf3d324bbcb92b080d0edc3295b33a922ec2473b644d2d8a01fc43b5";
+
+    private JwtProperties properties;
+    private KeyPair keyPair;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        keyPair = ecKeyPair();
+        properties.getSigning().setAlgorithm("ES256");
+        properties.getSigning().setKeyId("ec-1");
+        properties.getSigning().setPrivateKey(pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        properties.getSigning().setPublicKey(pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+    }
+
+    @Test
+    void signsWithTheEcKeyAndPublishesItsPublicHalf() {
+        JwtKeyRing keyRing = new JwtKeyRing(properties);
+        String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.getActiveKeyId())
+                .setSubject("screen@example.com")
+                .signWith(keyRing.getActiveSigningKey(), keyRing.getSignatureAlgorithm())
+                .compact();
+
+        // What a downstream service does with the JWKS alone
+        assertThat(Jwts.parserBuilder().setSigningKey(keyPair.getPublic()).build()
+                .parseClaimsJws(token).getHeader().getKeyId()).isEqualTo("ec-1");
+        assertThat(keyRing.getParser().parseClaimsJws(token).getBody().getSubject()).isEqualTo("screen@example.com");
+
+        assertThat(keyRing.getPublishedKeys()).hasSize(1);
+        Map<String, Object> jwk = JsonWebKeys.toJwk("ec-1", "ES256", keyRing.getPublishedKeys().get(0).key());
+        assertThat(jwk).containsEntry("kty", "EC").containsEntry("crv", "P-256")
+                .containsEntry("alg", "ES256").containsEntry("kid", "ec-1");
+        assertThat(Base64.getUrlDecoder().decode((String) jwk.get("x"))).hasSize(32);
+        assertThat(Base64.getUrlDecoder().decode((String) jwk.get("y"))).hasSize(32);
+    }
+
+    @Test
+    void keepsAcceptingHmacTokensUntilDisabled() {
+        // Issued before key ids, so it carries no kid
+        String legacy = Jwts.builder().setSubject("screen@example.com")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(new JwtKeyRing(properties).getParser().parseClaimsJws(legacy).getBody().getSubject())
+                .isEqualTo("screen@example.com");
+
+        properties.getSigning().setAcceptHmac(false);
+        assertThatThrownBy(() -> new JwtKeyRing(properties).getParser().parseClaimsJws(legacy))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void rejectsAPublicKeyFromAnotherPair() throws Exception {
+        properties.getSigning().setPublicKey(pem("PUBLIC KEY", ecKeyPair().getPublic().getEncoded()));
+
+        assertThatThrownBy(() -> new JwtKeyRing(properties)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void publishesNothingWhenSigningWithTheSharedSecret() {
+        properties.getSigning().setAlgorithm("HS256");
+
+        assertThat(new JwtKeyRing(properties).getPublishedKeys()).isEmpty();
+    }
+
+    @Test
+    void publishesRetiredRsaKeysWithoutAnAlgorithmUnlessConfigured() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        String retired = pem("PUBLIC KEY", generator.generateKeyPair().getPublic().getEncoded());
+        properties.getSigning().setPreviousPublicKeys(Map.of("rsa-1", retired));
+
+        assertThat(new JwtKeyRing(properties).getPublishedKeys())
+                .extracting(JwtKeyRing.PublishedKey::keyId, JwtKeyRing.PublishedKey::algorithm)
+                .containsExactly(tuple("ec-1", SignatureAlgorithm.ES256), tuple("rsa-1", null));
+
+        properties.getSigning().setPreviousKeyAlgorithms(Map.of("rsa-1", "ps384"));
+        assertThat(new JwtKeyRing(properties).getPublishedKeys().get(1).algorithm()).isEqualTo(SignatureAlgorithm.PS384);
+
+        properties.getSigning().setPreviousKeyAlgorithms(Map.of("rsa-1", "ES256"));
+        assertThatThrownBy(() -> new JwtKeyRing(properties)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,163 @@
+package za.co.eyetv.usersecurity.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.MockSettings;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.event.InMemoryRevocationEventBus;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.UserPrincipal;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+import za.co.eyetv.usersecurity.service.ActivityTracker;
+import za.co.eyetv.usersecurity.service.CustomUserDetailsService;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * JWS verifications and time per authenticated request through {@link JwtAuthenticationFilter}, against the
+ * three parses per request (subject, validity, expiry) the filter made before {@link VerifiedToken}.
+ *
+ * The verified token cache is disabled so every request pays for its verification. JMH reports the
+ * {@code verifications} and {@code requests} counters as totals next to the timing; their ratio should be 1
+ * for {@code filter} and 3 for {@code parsedThreeTimes}. The {@code filter} time also covers the request
+ * plumbing and logging around the verification, so compare the counters rather than the two timings. Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=za.co.eyetv.usersecurity.security.JwtVerificationBenchmark -Dexec.classpathScope=test}
+ * or from the IDE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    // Mocks called on every operation must not record the invocations
+    private static final MockSettings STUB_ONLY = withSettings().stubOnly();
+
+    private JwtKeyRing keyRing;
+    private JwtAuthenticationFilter filter;
+    private Counter verifications;
+    private String token;
+
+    /**
+     * Reported by JMH next to the timing, summed over each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Verifications {
+        public long verifications;
+        public long requests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            verifications = 0;
+            requests = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("c78cc026cf3d324bbcb92b080d0edc3295b33a922ec2473b644d2d8a01fc43b5");
+        properties.setExpirationMs(3600000);
+        properties.setRefreshExpirationMs(86400000);
+        properties.getVerifiedTokenCache().setEnabled(false);
+
+        BlacklistedTokenRepository blacklistedTokenRepository = mock(BlacklistedTokenRepository.class, STUB_ONLY);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RevocationEventBus eventBus = new InMemoryRevocationEventBus();
+        BlacklistBloomFilter bloomFilter = new BlacklistBloomFilter(blacklistedTokenRepository,
+                mock(PlatformTransactionManager.class), properties, eventBus, meterRegistry);
+        BlacklistWriteBehindQueue writeBehindQueue = new BlacklistWriteBehindQueue(
+                mock(JdbcTemplate.class), properties, eventBus, meterRegistry);
+        UserRepository userRepository = mock(UserRepository.class, STUB_ONLY);
+        when(userRepository.findTokenVersionByEmail("screen@example.com")).thenReturn(Optional.of(0));
+        keyRing = new JwtKeyRing(properties);
+        JwtService jwtService = new JwtService(properties, keyRing, new VerifiedTokenCache(properties, meterRegistry),
+                blacklistedTokenRepository, bloomFilter, writeBehindQueue,
+                new TokenVersionRegistry(userRepository, properties, eventBus), eventBus, meterRegistry);
+        verifications = meterRegistry.get("jwt.verifications").counter();
+
+        UserPrincipal principal = new UserPrincipal(User.builder()
+                .id(1L)
+                .email("screen@example.com")
+                .username("screen")
+                .name("Screen")
+                .password("{noop}secret")
+                .role(Roles.DISPLAY)
+                .build());
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class, STUB_ONLY);
+        when(userDetailsService.loadUserByUsername(any())).thenReturn(principal);
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, mock(ActivityTracker.class, STUB_ONLY), properties);
+        token = jwtService.generateToken(principal);
+    }
+
+    @Benchmark
+    public Object filter(Verifications counters) throws Exception {
+        double before = verifications.count();
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/screens");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        counters.verifications += (long) (verifications.count() - before);
+        counters.requests++;
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    /**
+     * What the filter did before: extract the subject, check validity (which parsed for the subject again),
+     * then check expiry, each verifying the signature and decoding the claims.
+     */
+    @Benchmark
+    public boolean parsedThreeTimes(Verifications counters) {
+        String subject = claims().getSubject();
+        boolean valid = subject.equals(claims().getSubject());
+        boolean expired = claims().getExpiration().before(new Date());
+        counters.verifications += 3;
+        counters.requests++;
+        return valid && !expired;
+    }
+
+    private Claims claims() {
+        return keyRing.getParser().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
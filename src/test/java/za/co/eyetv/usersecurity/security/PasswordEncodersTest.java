@@ -0,0 +1,47 @@
+package za.co.eyetv.usersecurity.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordEncodersTest {
+
+    @Test
+    void storesSchemeAndAcceptsLegacyHashes() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(10);
+        String legacy = new BCryptPasswordEncoder().encode("secret");
+
+        String hash = encoder.encode("secret");
+
+        assertThat(hash).startsWith("{bcrypt}$2a$10$");
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("secret", legacy)).isTrue();
+    }
+
+    @Test
+    void upgradesUnprefixedAndWeakerHashes() {
+        PasswordEncoder encoder = PasswordEncoders.delegating(11);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(11).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(PasswordEncoders.delegating(10).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+    }
+
+    @Test
+    void recognisesEncodedPasswords() {
+        String hash = new BCryptPasswordEncoder(4).encode("secret");
+
+        assertThat(PasswordEncoders.isEncoded(hash)).isTrue();
+        assertThat(PasswordEncoders.isEncoded("{bcrypt}" + hash)).isTrue();
+        assertThat(PasswordEncoders.isEncoded("{bcrypt}secret")).isFalse();
+        assertThat(PasswordEncoders.isEncoded("secret")).isFalse();
+    }
+
+    @Test
+    void calibratedStrengthStaysWithinBounds() {
+        assertThat(PasswordEncoders.calibrateBcryptStrength(1, 10, 16)).isEqualTo(10);
+        assertThat(PasswordEncoders.calibrateBcryptStrength(10_000_000, 10, 12)).isEqualTo(12);
+    }
+}
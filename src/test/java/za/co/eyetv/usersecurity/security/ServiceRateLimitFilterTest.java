@@ -0,0 +1,65 @@
+package za.co.eyetv.usersecurity.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import za.co.eyetv.usersecurity.config.RateLimitProperties;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceRateLimitFilterTest {
+
+    private ServiceRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setClient(new RateLimitProperties.Limit(60, 2));
+        filter = new ServiceRateLimitFilter(properties, new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void limitsEachClientOnItsOwn() throws Exception {
+        assertThat(introspect("gateway-a")).isEqualTo(200);
+        assertThat(introspect("gateway-a")).isEqualTo(200);
+        assertThat(introspect("gateway-a")).isEqualTo(429);
+
+        assertThat(introspect("gateway-b")).isEqualTo(200);
+    }
+
+    @Test
+    void leavesUnauthenticatedRequestsToTheAuthorizationRules() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(introspect(null)).isEqualTo(200);
+        }
+    }
+
+    private int introspect(String client) throws Exception {
+        SecurityContextHolder.clearContext();
+        if (client != null) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    client, null, List.of(new SimpleGrantedAuthority("ROLE_SERVICE"))));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/service/introspect");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,54 @@
+package za.co.eyetv.usersecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import za.co.eyetv.usersecurity.config.UserProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityTrackerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ActivityTracker activityTracker;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        activityTracker = new ActivityTracker(jdbcTemplate, new UserProperties(), meterRegistry);
+    }
+
+    @Test
+    void coalescesRequestsPerUserIntoOneStatement() {
+        for (int i = 0; i < 100; i++) {
+            activityTracker.record(1L);
+            activityTracker.record(2L);
+        }
+
+        assertThat(activityTracker.flush()).isEqualTo(2);
+        assertThat(activityTracker.flush()).isZero();
+        verify(jdbcTemplate, times(1)).update(any(PreparedStatementCreator.class));
+        assertThat(meterRegistry.get("users.activity.flushed").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void keepsActivityWhenTheUpdateFails() {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        activityTracker.record(1L);
+
+        assertThatThrownBy(() -> activityTracker.flush()).isInstanceOf(QueryTimeoutException.class);
+        assertThat(meterRegistry.get("users.activity.pending").gauge().value()).isEqualTo(1.0);
+    }
+}
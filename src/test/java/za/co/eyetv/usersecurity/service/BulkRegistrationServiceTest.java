@@ -0,0 +1,111 @@
+package za.co.eyetv.usersecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.BulkRegistrationRequest;
+import za.co.eyetv.usersecurity.dto.BulkRegistrationResponse;
+import za.co.eyetv.usersecurity.dto.RegisterRequest;
+import za.co.eyetv.usersecurity.exception.PasswordHashingUnavailableException;
+import za.co.eyetv.usersecurity.security.BulkHashingExecutor;
+import za.co.eyetv.usersecurity.security.PasswordEncoders;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkRegistrationServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserProperties properties;
+    private BulkHashingExecutor executor;
+    private BulkRegistrationService service;
+    private final List<String> hashes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        properties = new UserProperties();
+        properties.getBulk().setHashingThreads(2);
+        properties.getBulk().setBatchSize(4);
+        executor = new BulkHashingExecutor(properties, new SimpleMeterRegistry());
+        PasswordEncoder encoder = PasswordEncoders.delegating(4);
+        service = new BulkRegistrationService(jdbcTemplate, encoder, executor, properties, new SimpleMeterRegistry());
+
+        when(jdbcTemplate.queryForList(eq(BulkRegistrationService.EXISTING_SQL), any(String[].class), any(String[].class)))
+                .thenReturn(List.of(Map.of("email", "taken@example.com", "username", "taken")));
+        when(jdbcTemplate.queryForList(eq(BulkRegistrationService.INSERT_SQL), eq(String.class),
+                any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    hashes.addAll(Arrays.asList((String[]) invocation.getArgument(5)));
+                    // screen5 loses a race with a concurrent insert
+                    return Arrays.stream((String[]) invocation.getArgument(2))
+                            .filter(email -> !email.equals("screen5@example.com"))
+                            .toList();
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void insertsInChunksAndReportsTakenUsers() {
+        List<RegisterRequest> users = new ArrayList<>(IntStream.range(0, 9)
+                .mapToObj(i -> new RegisterRequest("screen" + i, "screen" + i + "@example.com", "Secret@123"))
+                .toList());
+        users.add(new RegisterRequest("taken", "taken@example.com", "Secret@123"));
+
+        BulkRegistrationResponse response = service.register(new BulkRegistrationRequest(null, users));
+
+        assertThat(response.isCompleted()).isTrue();
+        assertThat(response.getRequested()).isEqualTo(10);
+        assertThat(response.getProcessed()).isEqualTo(10);
+        assertThat(response.getCreated()).isEqualTo(8);
+        assertThat(response.getSkipped()).containsExactlyInAnyOrder("screen5@example.com", "taken@example.com");
+        verify(jdbcTemplate, times(3)).queryForList(eq(BulkRegistrationService.INSERT_SQL), eq(String.class),
+                any(), any(), any(), any(), any());
+        // The taken user is never hashed
+        assertThat(hashes).hasSize(9).allMatch(PasswordEncoders::isEncoded);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportsCommittedChunksWhenTheBulkPoolIsSaturated() {
+        BulkHashingExecutor saturated = mock(BulkHashingExecutor.class);
+        when(saturated.getThreads()).thenReturn(1);
+        when(saturated.submit(any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.<Supplier<Object>>getArgument(0).get()))
+                .thenThrow(new PasswordHashingUnavailableException("Bulk registration is busy, please retry shortly"));
+        service = new BulkRegistrationService(jdbcTemplate, PasswordEncoders.delegating(4), saturated, properties,
+                new SimpleMeterRegistry());
+        List<RegisterRequest> users = IntStream.range(0, 8)
+                .mapToObj(i -> new RegisterRequest("screen" + i, "screen" + i + "@example.com", "Secret@123"))
+                .toList();
+
+        BulkRegistrationResponse response = service.register(new BulkRegistrationRequest(null, users));
+
+        assertThat(response.isCompleted()).isFalse();
+        assertThat(response.getError()).contains("busy");
+        assertThat(response.getProcessed()).isEqualTo(4);
+        assertThat(response.getCreated()).isEqualTo(4);
+        assertThat(response.getSkipped()).isEmpty();
+    }
+}
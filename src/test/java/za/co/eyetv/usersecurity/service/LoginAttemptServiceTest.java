@@ -0,0 +1,133 @@
+package za.co.eyetv.usersecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.LoginLockDTO;
+import za.co.eyetv.usersecurity.event.RevocationEvent;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.exception.LoginLockedException;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoginAttemptServiceTest {
+
+    private UserRepository userRepository;
+    private RevocationEventBus eventBus;
+    private LoginAttemptService loginAttemptService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        eventBus = mock(RevocationEventBus.class);
+        when(userRepository.updateLockedUntil(any(), any())).thenReturn(1);
+        UserProperties properties = new UserProperties();
+        properties.getLockout().setAccountMaxFailures(3);
+        properties.getLockout().setSourceMaxFailures(5);
+        loginAttemptService = new LoginAttemptService(userRepository, eventBus, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void locksAccountOnceFailuresReachTheThreshold() {
+        for (int i = 0; i < 2; i++) {
+            loginAttemptService.recordFailure("Screen@Example.com", "10.0.0." + i);
+        }
+        assertThatCode(() -> loginAttemptService.checkAllowed("screen@example.com", "10.0.0.9")).doesNotThrowAnyException();
+        verify(userRepository, never()).updateLockedUntil(any(), any());
+
+        loginAttemptService.recordFailure("screen@example.com", "10.0.0.2");
+
+        assertThatThrownBy(() -> loginAttemptService.checkAllowed("SCREEN@example.com", "10.0.0.9"))
+                .isInstanceOf(LoginLockedException.class)
+                .satisfies(e -> assertThat(((LoginLockedException) e).getLockedUntil()).isAfter(Instant.now()));
+        verify(userRepository).updateLockedUntil(eq("screen@example.com"), any(Instant.class));
+        verify(eventBus).publish(RevocationEvent.userChanged("screen@example.com"));
+    }
+
+    @Test
+    void locksSourceSprayingManyAccounts() {
+        for (int i = 0; i < 5; i++) {
+            loginAttemptService.recordFailure("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertThatThrownBy(() -> loginAttemptService.checkAllowed("other@example.com", "10.0.0.1"))
+                .isInstanceOf(LoginLockedException.class);
+        assertThatCode(() -> loginAttemptService.checkAllowed("other@example.com", "10.0.0.2")).doesNotThrowAnyException();
+        verify(userRepository, never()).updateLockedUntil(any(), any());
+    }
+
+    @Test
+    void successClearsAccountFailures() {
+        loginAttemptService.recordFailure("screen@example.com", null);
+        loginAttemptService.recordFailure("screen@example.com", null);
+        loginAttemptService.recordSuccess("screen@example.com");
+        loginAttemptService.recordFailure("screen@example.com", null);
+
+        assertThatCode(() -> loginAttemptService.checkAllowed("screen@example.com", null)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void unlockLiftsTheLockEverywhere() {
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.recordFailure("screen@example.com", null);
+        }
+        assertThat(loginAttemptService.getLocks())
+                .extracting(LoginLockDTO::getKey, LoginLockDTO::getLockCount)
+                .containsExactly(tuple("screen@example.com", 1));
+
+        loginAttemptService.unlockAccount("screen@example.com");
+        // The mocked bus does not deliver, so hand the event back as any node would receive it
+        verify(eventBus).publish(RevocationEvent.accountUnlocked("screen@example.com"));
+        subscriber().accept(RevocationEvent.accountUnlocked("screen@example.com"));
+
+        assertThatCode(() -> loginAttemptService.checkAllowed("screen@example.com", null)).doesNotThrowAnyException();
+        verify(userRepository).updateLockedUntil("screen@example.com", null);
+        assertThat(loginAttemptService.getLocks()).isEmpty();
+    }
+
+    @Test
+    void forgetsTheAccountWhenAnotherNodeUnlocksIt() {
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.recordFailure("Screen@Example.com", null);
+        }
+
+        subscriber().accept(RevocationEvent.accountUnlocked("screen@example.com"));
+
+        assertThatCode(() -> loginAttemptService.checkAllowed("screen@example.com", null)).doesNotThrowAnyException();
+        assertThat(loginAttemptService.getLocks()).isEmpty();
+    }
+
+    @Test
+    void keepsTheLoginHistoryOnOtherUserChanges() {
+        for (int i = 0; i < 3; i++) {
+            loginAttemptService.recordFailure("screen@example.com", null);
+        }
+
+        subscriber().accept(RevocationEvent.userChanged("screen@example.com"));
+
+        assertThatThrownBy(() -> loginAttemptService.checkAllowed("screen@example.com", null))
+                .isInstanceOf(LoginLockedException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<RevocationEvent> subscriber() {
+        ArgumentCaptor<Consumer<RevocationEvent>> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(eventBus).subscribe(captor.capture());
+        return captor.getValue();
+    }
+}
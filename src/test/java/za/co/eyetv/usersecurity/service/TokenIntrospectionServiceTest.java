@@ -0,0 +1,143 @@
+package za.co.eyetv.usersecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import za.co.eyetv.usersecurity.config.JwtProperties;
+import za.co.eyetv.usersecurity.dto.TokenIntrospectionDTO;
+import za.co.eyetv.usersecurity.event.InMemoryRevocationEventBus;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.UserPrincipal;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.model.enums.TokenType;
+import za.co.eyetv.usersecurity.repository.BlacklistedTokenRepository;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+import za.co.eyetv.usersecurity.security.BlacklistBloomFilter;
+import za.co.eyetv.usersecurity.security.BlacklistWriteBehindQueue;
+import za.co.eyetv.usersecurity.security.JwtKeyRing;
+import za.co.eyetv.usersecurity.security.JwtService;
+import za.co.eyetv.usersecurity.security.TokenDigests;
+import za.co.eyetv.usersecurity.security.TokenVersionRegistry;
+import za.co.eyetv.usersecurity.security.VerifiedTokenCache;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenIntrospectionServiceTest {
+
+    private JwtService jwtService;
+    private JdbcTemplate jdbcTemplate;
+    private TokenIntrospectionService service;
+    private UserPrincipal principal;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("c78cc026cf3d324bbcb92b080d0edc3295b33a922ec2473b644d2d8a01fc43b5");
+        properties.setExpirationMs(3600000);
+        properties.setRefreshExpirationMs(86400000);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RevocationEventBus eventBus = new InMemoryRevocationEventBus();
+        BlacklistedTokenRepository blacklistedTokenRepository = mock(BlacklistedTokenRepository.class);
+        // Never loaded, so every token is a possible hit and goes to the bulk query
+        BlacklistBloomFilter bloomFilter = new BlacklistBloomFilter(blacklistedTokenRepository,
+                mock(PlatformTransactionManager.class), properties, eventBus, meterRegistry);
+        BlacklistWriteBehindQueue writeBehindQueue = new BlacklistWriteBehindQueue(
+                mock(JdbcTemplate.class), properties, eventBus, meterRegistry);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionByEmail("screen@example.com")).thenReturn(Optional.of(0));
+        TokenVersionRegistry tokenVersionRegistry = new TokenVersionRegistry(userRepository, properties, eventBus);
+        jwtService = new JwtService(properties, new JwtKeyRing(properties),
+                new VerifiedTokenCache(properties, meterRegistry), blacklistedTokenRepository,
+                bloomFilter, writeBehindQueue, tokenVersionRegistry, eventBus, meterRegistry);
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        service = new TokenIntrospectionService(jwtService, tokenVersionRegistry, bloomFilter, writeBehindQueue,
+                jdbcTemplate, properties, meterRegistry);
+
+        principal = new UserPrincipal(User.builder()
+                .id(1L)
+                .email("screen@example.com")
+                .username("screen")
+                .name("Screen")
+                .password("{noop}secret")
+                .role(Roles.DISPLAY)
+                .build());
+    }
+
+    @Test
+    void returnsClaimsForActiveTokensInRequestOrder() {
+        String token = jwtService.generateToken(principal);
+
+        List<TokenIntrospectionDTO> results = service.introspect(List.of("not-a-jwt", "Bearer " + token,
+                token.substring(0, token.length() - 2) + "xx"));
+
+        assertThat(results).extracting(TokenIntrospectionDTO::isActive).containsExactly(false, true, false);
+        TokenIntrospectionDTO active = results.get(1);
+        assertThat(active.getTokenType()).isEqualTo(TokenType.ACCESS);
+        assertThat(active.getSubject()).isEqualTo("screen@example.com");
+        assertThat(active.getUserId()).isEqualTo(1L);
+        assertThat(active.getRoles()).containsExactly("ROLE_DISPLAY");
+        assertThat(active.getExpiresAt()).isAfter(active.getIssuedAt());
+        assertThat(results.get(0).getSubject()).isNull();
+    }
+
+    @Test
+    void reportsRefreshTokensAsInactive() {
+        List<TokenIntrospectionDTO> results = service.introspect(List.of(jwtService.generateRefreshToken(principal)));
+
+        assertThat(results).extracting(TokenIntrospectionDTO::isActive).containsExactly(false);
+        assertThat(results.get(0).getTokenType()).isNull();
+    }
+
+    @Test
+    void checksTheWholeBatchAgainstTheBlacklistInOneQuery() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < TokenIntrospectionService.PARALLEL_THRESHOLD * 2; i++) {
+            tokens.add(jwtService.generateToken(principal));
+        }
+        byte[] revoked = TokenDigests.revocationDigest(jwtService.verifyToken(tokens.get(5)));
+        doAnswer(invocation -> {
+            ResultSet row = mock(ResultSet.class);
+            when(row.getBytes("token_digest")).thenReturn(revoked);
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(eq(TokenIntrospectionService.BLACKLISTED_SQL), any(RowCallbackHandler.class), any(), any());
+
+        List<TokenIntrospectionDTO> results = service.introspect(tokens);
+
+        assertThat(results).hasSize(tokens.size());
+        assertThat(results.get(5).isActive()).isFalse();
+        assertThat(results).filteredOn(TokenIntrospectionDTO::isActive).hasSize(tokens.size() - 1);
+        verify(jdbcTemplate, times(1)).query(eq(TokenIntrospectionService.BLACKLISTED_SQL),
+                any(RowCallbackHandler.class), any(), any());
+    }
+
+    @Test
+    void treatsCandidatesAsRevokedWhenTheBlacklistCannotBeRead() {
+        doThrow(new QueryTimeoutException("timeout")).when(jdbcTemplate)
+                .query(eq(TokenIntrospectionService.BLACKLISTED_SQL), any(RowCallbackHandler.class), any(), any());
+
+        List<TokenIntrospectionDTO> results = service.introspect(List.of(jwtService.generateToken(principal)));
+
+        assertThat(results).extracting(TokenIntrospectionDTO::isActive).containsExactly(false);
+    }
+}
@@ -0,0 +1,76 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import za.co.eyetv.usersecurity.dto.UserSummary;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserExportServiceTest {
+
+    private UserRepository userRepository;
+    private UserExportService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        service = new UserExportService(userRepository, mock(PlatformTransactionManager.class), objectMapper);
+        when(userRepository.streamAllSummaries()).thenAnswer(invocation -> Stream.of(
+                user(1L, "screen@example.com", "Lobby, Screen \"A\""),
+                user(2L, "kiosk@example.com", "Kiosk")));
+    }
+
+    @Test
+    void writesOneJsonObjectPerLineWithoutPasswords() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertThat(service.export(output, UserExportService.Format.NDJSON)).isEqualTo(2);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"email\":\"screen@example.com\"").doesNotContain("password");
+        assertThat(lines[1]).contains("\"createdAt\":\"2025-04-09T00:00:00Z\"");
+    }
+
+    @Test
+    void quotesCsvFieldsThatNeedIt() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        service.export(output, UserExportService.Format.CSV);
+
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                UserExportService.CSV_HEADER,
+                "1,screen@example.com,\"Lobby, Screen \"\"A\"\"\",screen,DISPLAY,true,2025-04-09T00:00:00Z,",
+                "2,kiosk@example.com,Kiosk,kiosk,DISPLAY,true,2025-04-09T00:00:00Z,");
+    }
+
+    @Test
+    void neutralisesFieldsThatSpreadsheetsWouldEvaluate() {
+        assertThat(UserExportService.csv("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(UserExportService.csv("+27 11")).isEqualTo("'+27 11");
+        assertThat(UserExportService.csv("-1")).isEqualTo("'-1");
+        assertThat(UserExportService.csv("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(UserExportService.csv("\tcmd")).isEqualTo("'\tcmd");
+        assertThat(UserExportService.csv("\rcmd")).isEqualTo("\"'\rcmd\"");
+        assertThat(UserExportService.csv("screen-1")).isEqualTo("screen-1");
+    }
+
+    private static UserSummary user(Long id, String email, String name) {
+        return new UserSummary(id, email, name, email.substring(0, email.indexOf('@')), Roles.DISPLAY, true,
+                Instant.parse("2025-04-09T00:00:00Z"), null);
+    }
+}
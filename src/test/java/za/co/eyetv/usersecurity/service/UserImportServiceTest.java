@@ -0,0 +1,128 @@
+package za.co.eyetv.usersecurity.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.ImportRowError;
+import za.co.eyetv.usersecurity.dto.UserImportReport;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.security.BulkHashingExecutor;
+import za.co.eyetv.usersecurity.security.PasswordEncoders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private BulkHashingExecutor executor;
+    private UserImportService service;
+    private final List<String> inserted = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        UserProperties properties = new UserProperties();
+        properties.getBulk().setHashingThreads(2);
+        properties.getBulk().setBatchSize(3);
+        properties.getBulk().setMaxLineLength(200);
+        executor = new BulkHashingExecutor(properties, new SimpleMeterRegistry());
+        BulkRegistrationService bulk = new BulkRegistrationService(jdbcTemplate, PasswordEncoders.delegating(4),
+                executor, properties, new SimpleMeterRegistry());
+        service = new UserImportService(bulk, executor,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), properties);
+
+        when(jdbcTemplate.queryForList(eq(BulkRegistrationService.EXISTING_SQL), any(String[].class), any(String[].class)))
+                .thenReturn(List.of(Map.of("email", "taken@example.com", "username", "taken")));
+        when(jdbcTemplate.queryForList(eq(BulkRegistrationService.INSERT_SQL), eq(String.class),
+                any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    List<String> emails = Arrays.asList((String[]) invocation.getArgument(2));
+                    inserted.addAll(emails);
+                    return emails;
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void importsNdjsonAndReportsBadRows() throws Exception {
+        String body = IntStream.range(0, 7)
+                .mapToObj(i -> "{\"email\":\"screen" + i + "@example.com\",\"username\":\"screen" + i + "\",\"password\":\"Secret@123\"}")
+                .collect(Collectors.joining("\n"))
+                + "\n{not json}"
+                + "\n{\"email\":\"not-an-email\",\"password\":\"Secret@123\"}"
+                + "\n\n{\"email\":\"taken@example.com\",\"username\":\"taken\",\"password\":\"Secret@123\"}\n";
+
+        UserImportReport report = service.importUsers(stream(body), UserImportService.Format.NDJSON, Roles.DISPLAY);
+
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getRead()).isEqualTo(10);
+        assertThat(report.getCreated()).isEqualTo(7);
+        assertThat(report.getSkipped()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ImportRowError::getLine).containsExactlyInAnyOrder(8L, 9L);
+        assertThat(inserted).hasSize(7);
+    }
+
+    @Test
+    void importsCsvByHeaderNames() throws Exception {
+        String body = "password,email,username\n"
+                + "\"Se,cret@123\",a@example.com,a\n"
+                + "Secret@123,b@example.com,\n";
+
+        UserImportReport report = service.importUsers(stream(body), UserImportService.Format.CSV, null);
+
+        assertThat(report.getCreated()).isEqualTo(2);
+        assertThat(inserted).containsExactly("a@example.com", "b@example.com");
+    }
+
+    @Test
+    void stopsOnUnusableCsvHeader() throws Exception {
+        UserImportReport report = service.importUsers(stream("name,email\nx,a@example.com\n"),
+                UserImportService.Format.CSV, null);
+
+        assertThat(report.isCompleted()).isFalse();
+        assertThat(report.getError()).contains("password");
+        assertThat(inserted).isEmpty();
+    }
+
+    @Test
+    void skipsLinesLongerThanTheLimit() throws Exception {
+        String body = "email,password\r\n"
+                + "a@example.com,Secret@123\r\n"
+                + "b@example.com," + "x".repeat(10_000) + "\r\n"
+                + "c@example.com,Secret@123";
+
+        UserImportReport report = service.importUsers(stream(body), UserImportService.Format.CSV, null);
+
+        assertThat(report.isCompleted()).isTrue();
+        assertThat(report.getErrors()).extracting(ImportRowError::getLine).containsExactly(3L);
+        assertThat(inserted).containsExactly("a@example.com", "c@example.com");
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
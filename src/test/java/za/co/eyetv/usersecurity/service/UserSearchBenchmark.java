@@ -0,0 +1,105 @@
+package za.co.eyetv.usersecurity.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import za.co.eyetv.usersecurity.config.UserSearchIndexMigration;
+import za.co.eyetv.usersecurity.dto.UserSearchResultDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of admin user search over 1M users, with the trigram indexes and, for comparison, the
+ * substring query they replace ({@code lower(name) LIKE '%x%'} on a sequential scan).
+ *
+ * Needs a Postgres the benchmark may create a schema in, given by {@code -Dbench.jdbc.url},
+ * {@code -Dbench.jdbc.username} and {@code -Dbench.jdbc.password}. The users are seeded once into the
+ * {@code user_search_bench} schema and reused by later runs. Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=za.co.eyetv.usersecurity.service.UserSearchBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    private static final String SCHEMA = "user_search_bench";
+    private static final int USERS = 1_000_000;
+
+    @Param({"user12345", "lobby", "example7", "us"})
+    private String term;
+
+    private JdbcTemplate jdbcTemplate;
+    private UserSearchService searchService;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/postgres") + "?currentSchema=" + SCHEMA,
+                System.getProperty("bench.jdbc.username", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        seed();
+        UserSearchIndexMigration searchIndex = new UserSearchIndexMigration(jdbcTemplate);
+        searchIndex.migrate();
+        jdbcTemplate.execute("ANALYZE users");
+        searchService = new UserSearchService(jdbcTemplate, searchIndex);
+    }
+
+    private void seed() {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS users (
+                    id bigserial PRIMARY KEY,
+                    email varchar(255) NOT NULL UNIQUE,
+                    name varchar(255) NOT NULL,
+                    username varchar(255) UNIQUE,
+                    password varchar(255) NOT NULL,
+                    role varchar(255) NOT NULL,
+                    active boolean)""");
+        Integer seeded = jdbcTemplate.queryForObject("SELECT count(*) FROM users", Integer.class);
+        if (seeded != null && seeded >= USERS) {
+            return;
+        }
+        jdbcTemplate.execute("TRUNCATE users");
+        jdbcTemplate.update("""
+                INSERT INTO users (email, name, username, password, role, active)
+                SELECT 'user' || g || '@example' || (g % 100) || '.com',
+                       (ARRAY['Lobby', 'Kiosk', 'Foyer', 'Canteen', 'Reception'])[1 + g % 5] || ' screen ' || md5(g::text),
+                       'user' || g, 'x', 'DISPLAY', true
+                FROM generate_series(1, ?) AS g""", USERS);
+    }
+
+    @Benchmark
+    public List<UserSearchResultDTO> search() {
+        return searchService.search(term, 20);
+    }
+
+    @Benchmark
+    public List<String> legacyNameContains() {
+        return jdbcTemplate.queryForList("SELECT name FROM users WHERE lower(name) LIKE ? LIMIT 20",
+                String.class, "%" + term + "%");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
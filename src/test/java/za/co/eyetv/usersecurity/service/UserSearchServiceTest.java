@@ -0,0 +1,70 @@
+package za.co.eyetv.usersecurity.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import za.co.eyetv.usersecurity.config.UserSearchIndexMigration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserSearchServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserSearchIndexMigration searchIndex;
+    private UserSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        searchIndex = mock(UserSearchIndexMigration.class);
+        service = new UserSearchService(jdbcTemplate, searchIndex);
+    }
+
+    @Test
+    void ranksWithTrigramsAndMatchesWildcardsLiterally() {
+        when(searchIndex.isTrigramAvailable()).thenReturn(true);
+
+        service.search("  Lobby_50% ", 500);
+
+        String prefix = "lobby\\_50\\%%";
+        String contains = "%lobby\\_50\\%%";
+        verify(jdbcTemplate).query(eq(UserSearchService.RANKED_SQL), any(RowMapper.class),
+                eq(prefix), eq(prefix), eq(prefix),
+                eq("lobby_50%"), eq("lobby_50%"), eq("lobby_50%"),
+                eq(contains), eq(contains), eq(contains),
+                eq(UserSearchService.MAX_LIMIT));
+    }
+
+    @Test
+    void fallsBackToPlainMatchingWithoutTrigrams() {
+        when(searchIndex.isTrigramAvailable()).thenReturn(false);
+
+        service.search("kiosk", 10);
+
+        verify(jdbcTemplate).query(eq(UserSearchService.UNRANKED_SQL), any(RowMapper.class),
+                eq("kiosk%"), eq("kiosk%"), eq("kiosk%"),
+                eq("%kiosk%"), eq("%kiosk%"), eq("%kiosk%"),
+                eq(10));
+    }
+
+    @Test
+    void matchesTermsTooShortForTrigramsAsPrefixes() {
+        service.search(" Ab ", 10);
+
+        verify(jdbcTemplate).query(eq(UserSearchService.PREFIX_SQL), any(RowMapper.class),
+                eq("ab%"), eq("ab%"), eq("ab%"), eq(10));
+    }
+
+    @Test
+    void ignoresBlankTerms() {
+        assertThat(service.search("  ", 10)).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,145 @@
+package za.co.eyetv.usersecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import za.co.eyetv.usersecurity.config.UserProperties;
+import za.co.eyetv.usersecurity.dto.UserDTO;
+import za.co.eyetv.usersecurity.dto.UserPageDTO;
+import za.co.eyetv.usersecurity.dto.UserSummary;
+import za.co.eyetv.usersecurity.event.RevocationEventBus;
+import za.co.eyetv.usersecurity.model.User;
+import za.co.eyetv.usersecurity.model.enums.Roles;
+import za.co.eyetv.usersecurity.repository.UserRepository;
+import za.co.eyetv.usersecurity.security.PasswordHashingExecutor;
+import za.co.eyetv.usersecurity.util.UserCursor;
+import za.co.eyetv.usersecurity.util.UserMapperImpl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private UserRepository userRepository;
+    private PasswordEncoder passwordEncoder;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        passwordEncoder = mock(PasswordEncoder.class);
+        userService = new UserService(userRepository, passwordEncoder,
+                new PasswordHashingExecutor(new UserProperties(), new SimpleMeterRegistry()), mock(RevocationEventBus.class),
+                new UserMapperImpl());
+    }
+
+    @Test
+    void returnsACursorWhenAnotherPageFollows() {
+        when(userRepository.findSummaries(any(), eq(Sort.Direction.DESC), eq(null), eq(3)))
+                .thenReturn(IntStream.rangeClosed(1, 3).mapToObj(UserServiceTest::summary).toList());
+
+        UserPageDTO<UserDTO> page = userService.listUsers(Roles.DISPLAY, true, null, null, Sort.Direction.DESC, null, 2);
+
+        assertThat(page.getItems()).extracting(UserDTO::getId).containsExactly(1L, 2L);
+        assertThat(page.getItems().get(0).getRoles()).containsExactly("ROLE_DISPLAY");
+        UserCursor next = UserCursor.decode(page.getNextCursor());
+        assertThat(next.id()).isEqualTo(2L);
+        assertThat(next.direction()).isEqualTo(Sort.Direction.DESC);
+    }
+
+    @Test
+    void continuesInTheCursorsDirection() {
+        UserCursor cursor = new UserCursor(Instant.parse("2025-04-09T00:00:00Z"), 7L, Sort.Direction.DESC);
+        when(userRepository.findSummaries(any(), any(), any(), eq(51))).thenReturn(List.of(summary(8)));
+
+        UserPageDTO<UserDTO> page = userService.listUsers(null, null, null, null, Sort.Direction.ASC, cursor.encode(), 50);
+
+        assertThat(page.getNextCursor()).isNull();
+        verify(userRepository).findSummaries(any(), eq(Sort.Direction.DESC), eq(cursor), eq(51));
+    }
+
+    @Test
+    void roleChangeBumpsTheTokenVersionAtomically() {
+        User user = User.builder().id(4L).email("screen@example.com").role(Roles.DISPLAY).tokenVersion(3).build();
+        when(userRepository.findById(4L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.updateUser(4L, User.builder().role(Roles.ADMIN).active(null).tokenVersion(null).build());
+
+        verify(userRepository).incrementTokenVersion(4L);
+        // The entity's own copy is never written back, so it cannot overwrite a concurrent increment
+        assertThat(user.getTokenVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void encodesAPasswordThatLooksLikeAHash() {
+        String bcryptShaped = "$2a$04$" + "a".repeat(53);
+        User user = User.builder().id(4L).email("screen@example.com").password("{bcrypt}old").build();
+        when(userRepository.findById(4L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(passwordEncoder.encode(bcryptShaped)).thenReturn("{bcrypt}encoded");
+
+        User saved = userService.updateUser(4L, User.builder().password(bcryptShaped).active(null).tokenVersion(null).build());
+
+        assertThat(saved.getPassword()).isEqualTo("{bcrypt}encoded");
+        verify(userRepository).incrementTokenVersion(4L);
+    }
+
+    @Test
+    void pagesThroughRowsSharingATimestampInBothDirections() {
+        Instant tie = Instant.parse("2025-04-09T00:00:00Z");
+        List<UserSummary> table = List.of(summary(1, tie.minusSeconds(1)), summary(2, tie), summary(3, tie),
+                summary(4, tie), summary(5, tie.plusSeconds(1)));
+        // Same contract as UserSummaryQueriesImpl: ordered by (createdAt, id), strictly after the cursor
+        when(userRepository.findSummaries(any(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            Sort.Direction direction = invocation.getArgument(1);
+            UserCursor after = invocation.getArgument(2);
+            Comparator<UserSummary> order = Comparator.comparing(UserSummary::createdAt).thenComparing(UserSummary::id);
+            Comparator<UserSummary> inDirection = direction.isAscending() ? order : order.reversed();
+            UserSummary cursorRow = after != null ? summary((int) after.id(), after.createdAt()) : null;
+            return table.stream()
+                    .filter(row -> cursorRow == null || inDirection.compare(row, cursorRow) > 0)
+                    .sorted(inDirection)
+                    .limit(invocation.<Integer>getArgument(3))
+                    .toList();
+        });
+
+        assertThat(readAllPages(Sort.Direction.ASC)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(readAllPages(Sort.Direction.DESC)).containsExactly(5L, 4L, 3L, 2L, 1L);
+    }
+
+    private List<Long> readAllPages(Sort.Direction direction) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPageDTO<UserDTO> page = userService.listUsers(null, null, null, null, direction, cursor, 2);
+            page.getItems().forEach(user -> ids.add(user.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static UserSummary summary(int id, Instant createdAt) {
+        return new UserSummary((long) id, "screen" + id + "@example.com", "Screen " + id, "screen" + id,
+                Roles.DISPLAY, true, createdAt, null);
+    }
+
+    private static UserSummary summary(int id) {
+        return new UserSummary((long) id, "screen" + id + "@example.com", "Screen " + id, "screen" + id,
+                Roles.DISPLAY, true, Instant.parse("2025-04-09T00:00:00Z"), null);
+    }
+}
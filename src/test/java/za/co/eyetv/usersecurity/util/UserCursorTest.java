@@ -0,0 +1,29 @@
+package za.co.eyetv.usersecurity.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import za.co.eyetv.usersecurity.exception.InvalidCursorException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserCursorTest {
+
+    @Test
+    void roundTripsThroughAnOpaqueToken() {
+        UserCursor cursor = new UserCursor(Instant.parse("2025-04-09T10:15:30.123456Z"), 42L, Sort.Direction.DESC);
+
+        String token = cursor.encode();
+
+        assertThat(token).doesNotContain("2025").doesNotContain("=");
+        assertThat(UserCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        assertThatThrownBy(() -> UserCursor.decode("not a cursor")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> UserCursor.decode("djF8eHx5fHo")).isInstanceOf(InvalidCursorException.class);
+    }
+}